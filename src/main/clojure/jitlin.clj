@@ -1,5 +1,9 @@
 (ns jitlin
-  (:require [clojure.set :as set]))
+  (:import [java.util.concurrent ForkJoinPool ForkJoinTask RecursiveTask]
+           [java.util.concurrent.atomic AtomicBoolean]
+           [phd.distributed.config SystemConfig]
+           [phd.distributed.verifier ConfigurationCache ConfigurationSet
+            IntervalOrder SearchBudget SharedConfigurationCache]))
 
 ;; ------------------------------------------------------------
 ;; 1) Event model (ya parseado)
@@ -43,48 +47,262 @@
     {:ops-by-id    (select-keys by-id complete-ids)
      :complete-ids complete-ids}))
 
-(defn build-precedence-graph
+(defn build-interval-order
+  "Ordena las operaciones completas por :i-inv y construye su orden de
+   tiempo real como IntervalOrder (a precede a b sii ret(a) < inv(b)).
+
+   Sustituye al grafo de precedencia explícito: en lugar de enumerar los
+   n² pares y guardar conjuntos de predecesores, las operaciones listas son
+   las no hechas cuyo :i-inv es menor que el mínimo :i-ret pendiente.
+
+   Regresa {:ops <vector ordenado por :i-inv> :order <IntervalOrder>}."
   [ops-by-id]
-  (let [ids   (keys ops-by-id)
-        pairs (for [a-id ids
-                    b-id ids
-                    :when (not= a-id b-id)
-                    :let [{a-ret :i-ret} (ops-by-id a-id)
-                          {b-inv :i-inv} (ops-by-id b-id)]
-                    :when (< a-ret b-inv)]
-                [a-id b-id])
-        succs (reduce (fn [m [a b]] (update m a (fnil conj #{}) b))
-                      (zipmap ids (repeat #{}))
-                      pairs)
-        preds (reduce (fn [m [a b]] (update m b (fnil conj #{}) a))
-                      (zipmap ids (repeat #{}))
-                      pairs)]
-    {:nodes (set ids)
-     :preds preds
-     :succs succs}))
-
-(defn ready-ops [preds done]
-  (set (for [[id ps] preds
-             :when (and (not (done id))
-                        (set/subset? ps done))]
-         id)))
+  (let [ops (vec (sort-by :i-inv (vals ops-by-id)))]
+    {:ops   ops
+     :order (IntervalOrder. (int-array (map :i-inv ops))
+                            (int-array (map :i-ret ops)))}))
+
+(defn- search-from
+  "DFS secuencial desde la configuración actual de order.
+
+   La pila es explícita (loop/recur sobre un vector de marcos), así que la
+   profundidad de la pila del hilo no depende del largo de la historia. Cada
+   marco guarda el estado de la especificación, sus candidatas, la siguiente
+   por probar y la operación que se marcó al entrar; al agotarlas se
+   registra la configuración como fallida y se desmarca esa operación.
+
+   Regresa el testigo: el vector de índices (en ops) linealizados a partir
+   de la configuración inicial, en orden; o nil si no hay linealización.
+   Si stop (AtomicBoolean) se activa o se agota el SearchBudget, la búsqueda
+   se abandona regresando :aborted sin registrar la configuración como
+   fallida."
+  [ops ^IntervalOrder order ^ConfigurationSet cache step-fn limit
+   ^AtomicBoolean stop ^SearchBudget budget state]
+  (let [n-ops    (count ops)
+        stopped? (fn []
+                   (or (and stop (.get stop))
+                       (and budget (.isExhausted budget))))
+        ;; :found / :abort / nil (nodo podado) / marco nuevo
+        enter    (fn [state op]
+                   (let [n-done (.doneCount order)]
+                     (cond
+                       (= n-done n-ops) :found
+                       (stopped?) :abort
+                       (and budget (not (.tick budget))) :abort
+                       (and limit (> n-done limit)) nil
+                       (.contains cache (.doneBits order) state) nil
+                       :else {:state state :cands (.candidates order) :pos 0 :op op})))
+        root     (enter state -1)]
+    (cond
+      (= root :found) []
+      (= root :abort) :aborted
+      (nil? root) nil
+      :else
+      (loop [stack [root]]
+        (let [{:keys [state cands pos op] :as top} (peek stack)
+              ^ints cands cands
+              pos (long pos)]
+          (if (< pos (alength cands))
+            (let [i     (aget cands pos)
+                  stack (conj (pop stack) (assoc top :pos (inc pos)))
+                  res   (step-fn state (nth ops i))]
+              (if-not (:ok? res)
+                (recur stack)
+                (do (.markDone order i)
+                    (let [child (enter (:state res) i)]
+                      (cond
+                        ;; el camino son las :op de los marcos bajo la raíz
+                        (= child :found) (conj (into [] (map :op) (subvec stack 1)) i)
+                        (= child :abort) :aborted
+                        (nil? child)     (do (.unmarkDone order i)
+                                             (recur stack))
+                        :else            (recur (conj stack child)))))))
+            (do (when-not (stopped?)
+                  (.add cache (.doneBits order) state))
+                (when (>= (long op) 0)
+                  (.unmarkDone order (int op)))
+                (let [stack (pop stack)]
+                  (if (empty? stack)
+                    nil
+                    (recur stack))))))))))
+
+(defn search-linearization
+  "Como find-linearization, pero distingue por qué no hay testigo: regresa
+   el testigo, :violation si la búsqueda terminó sin linealización o
+   :aborted si se abandonó (stop o :budget agotado). Con varias búsquedas
+   compartiendo el budget, sólo esto separa un fallo propio de uno ajeno."
+  [ops-by-id init-state step-fn & {:keys [limit cache-bytes ^SearchBudget budget stop]}]
+  (let [{:keys [ops order]} (build-interval-order ops-by-id)
+        cache (ConfigurationCache. (long (or cache-bytes SystemConfig/CONFIG_CACHE_MAX_BYTES)))
+        w     (search-from ops order cache step-fn limit stop budget init-state)]
+    (cond
+      (vector? w)     (mapv ops w)
+      (= w :aborted)  :aborted
+      :else           :violation)))
+
+(defn find-linearization
+  "DFS sobre las linealizaciones posibles.
+
+   Las candidatas de cada paso salen del IntervalOrder (ver
+   build-interval-order), que mantiene el conjunto de operaciones hechas
+   como bitset y se actualiza al bajar/retroceder en la búsqueda.
+
+   Memoiza las configuraciones (done, state) que ya fallaron en un
+   ConfigurationCache usando ese mismo bitset. Dos caminos que llegan a la
+   misma configuración tienen el mismo futuro, así que el segundo se poda
+   sin re-expandirlo.
+
+   Regresa el testigo (vector de operaciones de ops-by-id en orden de
+   linealización) o nil si la historia no es linealizable.
+
+   :cache-bytes acota la memoria (en bytes) de las configuraciones
+   recordadas; cada una copia el bitset de n/64 palabras
+   (por defecto verifier.config.cache.bytes; 0 lo desactiva).
+
+   :budget es un SearchBudget opcional (nodos, deadline, interrupción). Si
+   se agota, el resultado nil no es un veredicto: quien llama debe
+   consultar (.isExhausted budget), o usar search-linearization.
+
+   :stop es un AtomicBoolean opcional con el que quien llama abandona la
+   búsqueda (p.ej. cuando otra sub-historia ya falló); igual que con el
+   budget, el nil que resulta no es un veredicto."
+  [ops-by-id init-state step-fn & opts]
+  (let [w (apply search-linearization ops-by-id init-state step-fn opts)]
+    (when (vector? w) w)))
 
 (defn check-linearizable-dfs
-  [ops-by-id preds init-state step-fn & {:keys [limit]}]
-  (letfn [(dfs [state done]
-            (let [n-ops (count ops-by-id)]
-              (cond
-                (= (count done) n-ops) true
-                (and limit (> (count done) limit)) false
-                :else
-                (let [cands (ready-ops preds done)]
-                  (if (empty? cands)
-                    false
-                    (some
-                     (fn [op-id]
-                       (let [op  (ops-by-id op-id)
-                             res (step-fn state op)]
-                         (when (:ok? res)
-                           (dfs (:state res) (conj done op-id)))))
-                     cands))))))]
-    (dfs init-state #{})))
\ No newline at end of file
+  "Como find-linearization, pero sólo regresa el veredicto booleano."
+  [ops-by-id init-state step-fn & opts]
+  (some? (apply find-linearization ops-by-id init-state step-fn opts)))
+
+;; ------------------------------------------------------------
+;; 4) Búsqueda paralela especulativa
+;; ------------------------------------------------------------
+
+(def ^:private search-pool
+  (delay (ForkJoinPool. (int SystemConfig/PARALLEL_SEARCH_THREADS))))
+
+(defn find-linearization-parallel
+  "Variante paralela de find-linearization.
+
+   Hasta la profundidad :fork-depth cada candidata aceptada por la
+   especificación se lanza como RecursiveTask con su propia copia del
+   IntervalOrder (el estado de la especificación es persistente, así que
+   no hace falta copiarlo); por debajo, cada tarea sigue con el DFS
+   secuencial. Las tareas ociosas roban trabajo (work stealing).
+
+   Todas las tareas comparten un SharedConfigurationCache, así que una
+   configuración refutada por un worker se poda para todos, y un
+   AtomicBoolean que las detiene en cuanto una encuentra un testigo. El
+   :budget (como en find-linearization) también es compartido."
+  [ops-by-id init-state step-fn & {:keys [limit cache-bytes fork-depth ^SearchBudget budget]}]
+  (let [{:keys [ops order]} (build-interval-order ops-by-id)
+        n-ops      (count ops)
+        cache      (SharedConfigurationCache.
+                    (long (or cache-bytes SystemConfig/CONFIG_CACHE_MAX_BYTES)))
+        stop       (AtomicBoolean. false)
+        fork-depth (or fork-depth SystemConfig/PARALLEL_FORK_DEPTH)]
+    (letfn [(task [order state depth]
+              (proxy [RecursiveTask] []
+                (compute []
+                  (let [w (search order state depth)]
+                    (when w (.set stop true))
+                    w))))
+            (search [^IntervalOrder order state depth]
+              (if (>= depth fork-depth)
+                (let [w (search-from ops order cache step-fn limit stop budget state)]
+                  (when (vector? w) w))
+                (cond
+                  (= (.doneCount order) n-ops) []
+                  (.get stop) nil
+                  (and budget (not (.tick budget))) nil
+                  (.contains cache (.doneBits order) state) nil
+                  :else
+                  (let [forks (vec (for [i (.candidates order)
+                                         :let [res (step-fn state (nth ops i))]
+                                         :when (:ok? res)]
+                                     (let [child (.copy order)]
+                                       (.markDone child (int i))
+                                       [i (task child (:state res) (inc depth))])))]
+                    (ForkJoinTask/invokeAll ^java.util.Collection (mapv second forks))
+                    (or (some (fn [[i ^ForkJoinTask t]]
+                                (when-let [w (.join t)]
+                                  (into [i] w)))
+                              forks)
+                        (do (when-not (or (.get stop)
+                                          (and budget (.isExhausted budget)))
+                              (.add cache (.doneBits order) state))
+                            nil))))))]
+      (some->> (.invoke ^ForkJoinPool @search-pool ^ForkJoinTask (task order init-state 0))
+               (mapv ops)))))
+
+(defn check-linearizable-parallel
+  "Como find-linearization-parallel, pero sólo regresa el veredicto booleano."
+  [ops-by-id init-state step-fn & opts]
+  (some? (apply find-linearization-parallel ops-by-id init-state step-fn opts)))
+
+;; ------------------------------------------------------------
+;; 5) Estados alcanzables (verificación incremental)
+;; ------------------------------------------------------------
+
+(defn reachable-states
+  "Conjunto de estados abstractos en que termina alguna linealización
+   completa de ops-by-id, partiendo de cualquiera de los estados de
+   init-states. Conjunto vacío si ninguna existe.
+
+   A diferencia de find-linearization no se detiene en el primer testigo:
+   recorre todas las configuraciones (done, state) alcanzables, cada una
+   una sola vez (las ya visitadas se guardan en un ConfigurationCache), con
+   la misma pila explícita que search-from.
+
+   Regresa nil si se agota el :budget (SearchBudget opcional)."
+  [ops-by-id init-states step-fn & {:keys [^SearchBudget budget]}]
+  (let [{:keys [ops order]} (build-interval-order ops-by-id)
+        ^IntervalOrder order order
+        n-ops (count ops)
+        seen  (ConfigurationCache. SystemConfig/CONFIG_CACHE_MAX_BYTES)
+        frame (fn [state op] {:state state :cands (.candidates order) :pos 0 :op op})]
+    (if (zero? n-ops)
+      (set init-states)
+      (loop [roots (seq init-states)
+             stack []
+             out   (transient #{})]
+        (cond
+          (and budget (.isExhausted budget))
+          nil
+
+          (empty? stack)
+          (if-let [[s & more] roots]
+            (if (.contains seen (.doneBits order) s)
+              (recur more stack out)
+              (do (.add seen (.doneBits order) s)
+                  (recur more [(frame s -1)] out)))
+            (persistent! out))
+
+          :else
+          (let [{:keys [state cands pos op] :as top} (peek stack)
+                ^ints cands cands
+                pos (long pos)]
+            (if (< pos (alength cands))
+              (let [i     (aget cands pos)
+                    stack (conj (pop stack) (assoc top :pos (inc pos)))
+                    res   (step-fn state (nth ops i))]
+                (if-not (and (:ok? res) (or (nil? budget) (.tick budget)))
+                  (recur roots stack out)
+                  (let [s' (:state res)]
+                    (.markDone order i)
+                    (cond
+                      (= (.doneCount order) n-ops)
+                      (do (.unmarkDone order i)
+                          (recur roots stack (conj! out s')))
+
+                      (.contains seen (.doneBits order) s')
+                      (do (.unmarkDone order i)
+                          (recur roots stack out))
+
+                      :else
+                      (do (.add seen (.doneBits order) s')
+                          (recur roots (conj stack (frame s' i)) out))))))
+              (do (when (>= (long op) 0)
+                    (.unmarkDone order (int op)))
+                  (recur roots (pop stack) out)))))))))
@@ -2,10 +2,15 @@
   (:gen-class)
   (:require [clojure.set :as set]
             [clojure.pprint :as pp])
-  (:import [java.util ArrayList]))
+  (:import [java.util ArrayList]
+           [phd.distributed.snapshot Snapshot ViewOrder EventLog]))
 
 ;; ============================================================
 ;; Global state: dos listas Java de vectores de Clojure
+;;
+;; CollectRAW ya no escribe aquí: registra en un EventLog de Java y
+;; construye X_E con XeBuilder/byViews. Este namespace se conserva para
+;; AspectJSnapshot (src/experiments) y como implementación de referencia.
 ;; ============================================================
 
 (def invs-var
@@ -63,17 +68,20 @@
    the real one.  The potentially stale view is an acceptable trade-off for
    avoiding the overhead of a full atomic snapshot.
 
+   Vista incremental: cada slot de invs-var sólo crece por el final, así que
+   copiar el slot j equivale a recordar cuántas invocaciones tenía. La :view
+   es entonces un vector de p enteros (un reloj vectorial), O(p) por return
+   en lugar de O(n).
+
    Estructura:
-   {:type :return, :op-id ..., :tid ..., :res ..., :view snapshot}"
+   {:type :return, :op-id ..., :tid ..., :res ..., :view [c0 c1 ... cp-1]}"
   [tid op-id res]
-  ;; snapshot = inmmutable copy of all invocations written
-  (let [snapshot (->> (seq invs-var)
-                      (mapv vec))
+  (let [view     (mapv count (seq invs-var))
         event    {:type :return
                   :op-id op-id
                   :tid   tid
                   :res   res
-                  :view  snapshot}
+                  :view  view}
         old-vec  (.get returns-var tid)
         new-vec  (conj old-vec event)]
     (.set returns-var tid new-vec)
@@ -99,35 +107,37 @@
   (into {}
         (for [ev (all-invs)]
           [(:op-id ev) ev])))
+
+(defn inv-positions
+  "Mapea op-id ↦ [tid pos], donde pos es la posición (0-based) de la
+   invocación dentro de invs-var[tid]."
+  []
+  (into {}
+        (for [tid      (range (.size invs-var))
+              [pos ev] (map-indexed vector (.get invs-var tid))]
+          [(:op-id ev) [tid pos]])))
+
 (defn ret-info
-  "Mapea op-id ↦ {:ret <evento-return> :inv-set #{op-ids vistos en :view}}.
+  "Mapea op-id ↦ {:ret <evento-return> :view [c0 ... cp-1]}.
 
-   Soporta dos formatos de :view:
-   1) Mapa: {op-id op-id, ...}
-   2) Vector de vectores de invocaciones: [[{:op-id ...} ...] [...]]"
+   La :view es el reloj vectorial registrado por log-return!: la invocación
+   en la posición pos de invs-var[tid] es visible sii pos < (view tid)."
   []
   (into {}
-        (for [ret-ev (all-returns)
-              :let [op-id (:op-id ret-ev)
-                    view  (:view ret-ev)
-                    inv-set
-                    (cond
-                      ;; Caso 1: mapa {op-id op-id}
-                      (map? view)
-                      (set (keys view))
-
-                      ;; Caso 2: vector de vectores de eventos
-                      (sequential? view)
-                      (->> view
-                           (mapcat identity)
-                           (map :op-id)
-                           set)
-
-                      :else
-                      #{})]]
-          [op-id {:ret     ret-ev
-                  :inv-set inv-set}])))
-                  
+        (for [ret-ev (all-returns)]
+          [(:op-id ret-ev) {:ret  ret-ev
+                            :view (:view ret-ev)}])))
+
+(defn- in-view?
+  "¿La invocación en [tid pos] aparece en la vista?"
+  [view [tid pos]]
+  (< pos (nth view tid 0)))
+
+(defn- view<=
+  "Contención de vistas: S(a) ⊆ S(b) sii a ≤ b componente a componente."
+  [a b]
+  (every? true? (map <= a b)))
+
 (defn build-edges-as-events
   "Construye un *vector* de aristas, donde cada arista es
    [evento-desde evento-hasta].
@@ -135,10 +145,14 @@
    - (a) invX → retX para cada op-id completo.
    - (b) ret_i → inv_j si view(i) ⊂ view(j), view(j) ≠ view(i)
          y op-id de inv_j NO está en view(i).
-   - (c) inv_k → ret_i si el op-id k aparece en la vista (:inv-set) de ret_i."
+   - (c) inv_k → ret_i si el op-id k aparece en la vista de ret_i.
+
+   Las vistas son relojes vectoriales, así que la contención es una
+   comparación de p enteros en lugar de un set/subset? sobre op-ids."
   []
   (let [inv-map (inv-by-op-id)   ;; op-id ↦ evento de invocación
-        ret-map (ret-info)]      ;; op-id ↦ {:ret ret-event :inv-set #{...}}
+        inv-pos (inv-positions)  ;; op-id ↦ [tid pos]
+        ret-map (ret-info)]      ;; op-id ↦ {:ret ret-event :view [...]}
 
     (let [;; (a) invX -> retX
           edges-own
@@ -152,22 +166,22 @@
           (for [[id-i info-i] ret-map
                 [id-j info-j] ret-map
                 :when (not= id-i id-j)
-                :let [Si    (:inv-set info-i)
-                      Sj    (:inv-set info-j)
+                :let [Vi    (:view info-i)
+                      Vj    (:view info-j)
                       inv-j (inv-map id-j)]
-                :when (and (set/subset? Si Sj)
-                           (not (set/subset? Sj Si))
-                           (not (contains? Si id-j))
-                           inv-j)]
+                :when (and inv-j
+                           (view<= Vi Vj)
+                           (not= Vi Vj)
+                           (not (in-view? Vi (inv-pos id-j))))]
             [(:ret info-i) inv-j])
 
           ;; (c) inv_k -> ret_i si k está en la vista de ret_i
           edges-view
-          (for [[id-i {:keys [ret inv-set]}] ret-map
-                op-id-k inv-set
-                :let [inv-k (inv-map op-id-k)]
+          (for [[id-i {:keys [ret view]}] ret-map
+                tid   (range (count view))
+                inv-k (take (nth view tid) (.get invs-var tid))
                 ;; opcional: evitar duplicar la arista propia invX->retX
-                :when (and inv-k (not= op-id-k id-i))]
+                :when (not= (:op-id inv-k) id-i)]
             [inv-k ret])]
 
       ;; devolvemos todo como vector (no set) para conservar orden;
@@ -249,7 +263,9 @@
    a un formato plano para el verificador:
    - Mantiene :op tal cual viene de Java (sin normalizar nombres).
    - Elimina el campo :view de los eventos de tipo :return.
-   - Conserva :type, :op-id, :tid, :arg, :res."
+   - Conserva :type, :op-id, :tid, :arg, :res.
+   - Convierte :arg/:res a string aquí (CollectRAW guarda las referencias
+     crudas para no pagar el toString en los hilos productores)."
   [xe]
   (mapv
    (fn [{:keys [type op-id tid op arg res] :as ev}]
@@ -259,13 +275,13 @@
         :op-id op-id
         :tid   tid
         :op    op
-        :arg   arg}
+        :arg   (Snapshot/valueAsString arg)}
 
        :return
        {:type  :return
         :op-id op-id
         :tid   tid
-        :res   res}
+        :res   (Snapshot/valueAsString res)}
 
        ;; fallback (por si hubiera algún tipo raro)
        ev))
@@ -275,6 +291,36 @@
   (-> (build-edges-as-events)
       (topo-order-events)
       (xe-for-jit)))
+
+(defn order-by-views
+  "Orden topológico de invs-var/returns-var calculado en Java por
+   ViewOrder a partir de los relojes vectoriales :view.
+
+   Usa las mismas aristas (a)/(b)/(c) que build-edges-as-events pero
+   reducidas a una arista por (return, hilo), sin la comparación de todos
+   los pares de returns ni los mapas por op-id."
+  []
+  (let [invs    (vec (seq invs-var))
+        rets    (vec (seq returns-var))
+        counts  (int-array (map count invs))
+        views   (into-array (Class/forName "[[I")
+                            (for [rs rets]
+                              (into-array (Class/forName "[I")
+                                          (map #(int-array (:view %)) rs))))
+        ^ViewOrder order (ViewOrder/of counts views)]
+    (persistent!
+     (reduce (fn [acc i]
+               (let [i   (int i)
+                     tid (.tid order i)
+                     idx (.index order i)]
+                 (conj! acc (if (== (.type order i) EventLog/INVOKE)
+                              (nth (nth invs tid) idx)
+                              (nth (nth rets tid) idx)))))
+             (transient [])
+             (range (.size order))))))
+
+(defn xe-for-jit-from-views []
+  (xe-for-jit (order-by-views)))
       
 ;; (defn xe-for-jit-from-logs []
 ;;   ;; ============================================================
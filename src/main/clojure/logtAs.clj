@@ -22,6 +22,11 @@
 (defn write-log-tAs!
   "Append event to logs-var[tid].
 
+   CollectFAInc no longer uses this namespace: it records events in a
+   Java-side primitive log (phd.distributed.snapshot.EventLog) and builds
+   X_E with XeBuilder/byCount, a k-way merge equivalent to build-xe +
+   xe-for-jit.
+
    Thread-safety (SWMR per slot): each thread tid is the sole writer of
    slot tid in logs-var (.set logs-var tid ...).  No two threads ever write
    to the same slot, so there is no write-write conflict.
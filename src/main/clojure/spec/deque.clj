@@ -1,8 +1,43 @@
 (ns spec.deque
   (:require [spec.queue :as qspec]))
 
-;; Estado inicial: deque vacía (vector [front ... back])
-(defn deque-init [] [])
+;; ------------------------------------------------------------
+;; Estado: deque indexada
+;; ------------------------------------------------------------
+;; items mapea los índices consecutivos [lo, hi) a los elementos, de frente
+;; a fondo, así que ambos extremos se agregan y quitan en O(log32 n) sin
+;; copiar. La igualdad y el hash sólo dependen del contenido (no de lo/hi),
+;; y el hash se calcula una vez por estado, como en los vectores.
+(deftype Deque [^long lo ^long hi items ^:unsynchronized-mutable ^int hq]
+  clojure.lang.Counted
+  (count [_] (int (- hi lo)))
+
+  clojure.lang.Seqable
+  (seq [_] (when (< lo hi) (map items (range lo hi))))
+
+  clojure.lang.Sequential
+
+  clojure.lang.IHashEq
+  (hasheq [this]
+    (when (zero? hq)
+      (set! hq (int (hash-ordered-coll (or (seq this) ())))))
+    hq)
+
+  Object
+  (hashCode [this] (.hasheq this))
+  (equals [this o]
+    (or (identical? this o)
+        (and (instance? Deque o)
+             (let [^Deque d o]
+               (and (== (- hi lo) (- (.-hi d) (.-lo d)))
+                    (loop [i lo j (.-lo d)]
+                      (or (== i hi)
+                          (and (= (items i) ((.-items d) j))
+                               (recur (inc i) (inc j))))))))))
+  (toString [this] (str (vec (seq this)))))
+
+;; Estado inicial: deque vacía
+(defn deque-init [] (Deque. 0 0 {} 0))
 
 (def normalize-nil  qspec/normalize-nil)
 (def normalize-bool qspec/normalize-bool)
@@ -38,23 +73,24 @@
     ;; no reconocida
     nil))
 
-;; Helpers para sacar frente / fondo de un vector
-(defn- pop-front [v]
-  (let [v (vec v)]
-    (if (seq v)
-      {:elem (first v)
-       :rest (subvec v 1)}
-      {:elem nil
-       :rest v})))
-
-(defn- pop-back [v]
-  (let [v (vec v)]
-    (if (seq v)
-      (let [n (dec (count v))]
-        {:elem (nth v n)
-         :rest (subvec v 0 n)})
-      {:elem nil
-       :rest v})))
+;; Helpers sobre los extremos de la deque (todos O(log32 n))
+(defn- push-front [^Deque d x]
+  (let [i (dec (.-lo d))]
+    (Deque. i (.-hi d) (assoc (.-items d) i x) 0)))
+
+(defn- push-back [^Deque d x]
+  (let [i (.-hi d)]
+    (Deque. (.-lo d) (inc i) (assoc (.-items d) i x) 0)))
+
+(defn- pop-front [^Deque d]
+  (let [i (.-lo d)]
+    {:elem ((.-items d) i)
+     :rest (Deque. (inc i) (.-hi d) (dissoc (.-items d) i) 0)}))
+
+(defn- pop-back [^Deque d]
+  (let [i (dec (.-hi d))]
+    {:elem ((.-items d) i)
+     :rest (Deque. (.-lo d) i (dissoc (.-items d) i) 0)}))
 
 (defn deque-step
   "Especificación secuencial de una DEQUE:
@@ -69,7 +105,7 @@
       :enqueue-front
       (let [res*     (normalize-bool res)
             success? true
-            q'       (into [arg] q)]      ;; arg :: frente
+            q'       (push-front q arg)]  ;; arg :: frente
         {:ok?  (= res* success?)
          :res  success?
          :state q'})
@@ -78,31 +114,31 @@
       :enqueue-back
       (let [res*     (normalize-bool res)
             success? true
-            q'       (conj q arg)]        ;; arg :: fondo
+            q'       (push-back q arg)]   ;; arg :: fondo
         {:ok?  (= res* success?)
          :res  success?
          :state q'})
 
       ;; Dequeue desde el frente
       :dequeue-front
-      (let [res* (normalize-nil res)
-            {:keys [elem rest]} (pop-front q)]
-        (if (some? elem)
-          {:ok?  (= res* elem)
-           :res  elem
-           :state rest}
+      (let [res* (normalize-nil res)]
+        (if (pos? (count q))
+          (let [{:keys [elem rest]} (pop-front q)]
+            {:ok?  (= res* elem)
+             :res  elem
+             :state rest})
           {:ok?  (= res* nil)
            :res  nil
            :state q}))
 
       ;; Dequeue desde el fondo
       :dequeue-back
-      (let [res* (normalize-nil res)
-            {:keys [elem rest]} (pop-back q)]
-        (if (some? elem)
-          {:ok?  (= res* elem)
-           :res  elem
-           :state rest}
+      (let [res* (normalize-nil res)]
+        (if (pos? (count q))
+          (let [{:keys [elem rest]} (pop-back q)]
+            {:ok?  (= res* elem)
+             :res  elem
+             :state rest})
           {:ok?  (= res* nil)
            :res  nil
            :state q}))
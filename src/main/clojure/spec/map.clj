@@ -1,5 +1,6 @@
 (ns spec.map
-  (:require [clojure.string :as str]))
+  (:require [clojure.string :as str]
+            [spec.queue :as qspec]))
 
 (defn map-init [] {})
 
@@ -14,7 +15,7 @@
   [k]
   (cond
     (nil? k)    nil
-    (string? k) (str/trim k)
+    (string? k) (.trim ^String k)
     (keyword? k) (name k)
     :else       k))
 
@@ -30,14 +31,13 @@
     (nil? v) nil
 
     (string? v)
-    (let [s (-> v str/trim)]
-      (if (#{"null" "nil"} (str/lower-case s))
-        nil
-        s))
+    (if (qspec/null-like? v)
+      nil
+      (.trim ^String v))
 
     (keyword? v)
     (let [s (name v)]
-      (if (#{"null" "nil"} (str/lower-case s))
+      (if (qspec/null-like? s)
         nil
         s))
 
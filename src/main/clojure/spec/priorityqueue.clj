@@ -2,23 +2,28 @@
 (:require [clojure.string :as str]
             [spec.queue :as qspec]))
             
-(defn pqueue-init [] [])
+;; Estado: multiconjunto ordenado (sorted-map elemento -> multiplicidad).
+;; insert y poll son O(log n), sin reconstruir vectores, y el hash del mapa
+;; se cachea como en cualquier colección persistente.
+(defn pqueue-init [] (sorted-map))
 
 (def normalize-nil qspec/normalize-nil)
 (def normalize-bool qspec/normalize-bool)
 
 (def queue-op-kind qspec/queue-op-kind) ;; si quieres la misma normalización
 
-(defn insert-sorted [v x]
-  (let [idx (->> v
-                 (map-indexed vector)
-                 (some (fn [[i e]]
-                         (when (pos? (compare e x))
-                           i))))]
-    (if (nil? idx)
-      (conj v x)
-      (into (subvec v 0 idx)
-            (cons x (subvec v idx))))))
+(defn insert-sorted
+  "Agrega una ocurrencia de x al multiconjunto m."
+  [m x]
+  (assoc m x (inc (get m x 0))))
+
+(defn- remove-min
+  "Quita una ocurrencia del mínimo de m (no vacío)."
+  [m]
+  (let [[x n] (first m)]
+    (if (== n 1)
+      (dissoc m x)
+      (assoc m x (dec n)))))
 
 (defn pqueue-step
   [q op arg res]
@@ -36,8 +41,8 @@
       :dequeue
       (let [res* (normalize-nil res)]
         (if (seq q)
-          (let [r  (first q)
-                q' (vec (rest q))]
+          (let [r  (key (first q))
+                q' (remove-min q)]
             {:ok?  (= res* r)
              :res  r
              :state q'})
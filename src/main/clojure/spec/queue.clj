@@ -1,35 +1,48 @@
-(ns spec.queue
-  (:require [clojure.string :as str]))
+(ns spec.queue)
 
-(defn queue-init [] [])
+;; Estado: clojure.lang.PersistentQueue, con conj/peek/pop en O(1) y hash
+;; cacheado (es igual a un vector con los mismos elementos).
+(defn queue-init [] clojure.lang.PersistentQueue/EMPTY)
+
+;; Los valores llegan ya tipados desde XeBuilder (nil, booleanos, longs,
+;; vectores); las normalizaciones sólo hacen trabajo sobre strings y keywords,
+;; y aun entonces sin reservar memoria, porque corren en cada paso de la DFS.
+
+(defn null-like?
+  "true si s es \"nil\" o \"null\", ignorando mayúsculas y espacios."
+  [^String s]
+  (let [t (.trim s)]
+    (or (.equalsIgnoreCase "nil" t)
+        (.equalsIgnoreCase "null" t))))
+
+(defn bool-like
+  "true/false si s es \"true\"/\"false\" (ignorando mayúsculas y espacios),
+   o nil si no es un booleano."
+  [^String s]
+  (let [t (.trim s)]
+    (cond
+      (.equalsIgnoreCase "true" t)  true
+      (.equalsIgnoreCase "false" t) false
+      :else nil)))
 
 (defn normalize-nil
   [v]
   (cond
     (nil? v) nil
-    (and (string? v)
-         (#{"nil" "null"} (-> v str/trim str/lower-case))) nil
-    (and (keyword? v)
-         (#{"nil" "null"} (-> v name str/lower-case))) nil
+    (and (string? v) (null-like? v)) nil
+    (and (keyword? v) (null-like? (name v))) nil
     :else v))
 
 (defn normalize-bool
   [v]
   (cond
-    (true? v) true
-    (false? v) false
+    (boolean? v) v
     (string? v)
-    (let [s (-> v str/trim str/lower-case)]
-      (cond
-        (= s "true")  true
-        (= s "false") false
-        :else v))
+    (let [b (bool-like v)]
+      (if (nil? b) v b))
     (keyword? v)
-    (let [s (-> v name str/lower-case)]
-      (cond
-        (= s "true")  true
-        (= s "false") false
-        :else v))
+    (let [b (bool-like (name v))]
+      (if (nil? b) v b))
     :else v))
 
 (defn queue-op-kind
@@ -53,7 +66,7 @@
 (defn queue-step
   "Especificación secuencial de una cola (FIFO).
 
-   q   : estado actual (vector)
+   q   : estado actual (PersistentQueue)
    op  : nombre ‘bruto’ de la operación (:offer, :poll, :add, ...)
    arg : argumento (para enqueue/offer/add) — lo dejamos tal cual (p.ej. [3])
    res : resultado observado (para poll/remove)
@@ -79,10 +92,10 @@
       ;; ===================== DEQUEUE =====================
       :dequeue
       (let [res-norm (normalize-nil res)]
-        (if (seq q)
+        (if (pos? (count q))
           ;; Cola NO vacía
-          (let [r       (first q)      ;; lo que hay en la cabeza, p.ej. [3] o 3
-                q'      (vec (rest q))
+          (let [r       (peek q)       ;; lo que hay en la cabeza, p.ej. [3] o 3
+                q'      (pop q)
                 ;; Ajuste clave: comparamos tanto con res como con [res]
                 ;; para aceptar 3 vs [3] y [3] vs 3.
                 res-as-vec [res-norm]
@@ -1,5 +1,5 @@
 (ns spec.set
-  (:require [clojure.string :as str]))
+  (:require [spec.queue :as qspec]))
 
 ;; Estado inicial: conjunto vacío
 (defn set-init [] #{})
@@ -13,28 +13,24 @@
    Cualquier otra cosa → se devuelve tal cual (para debug)."
   [v]
   (cond
-    ;; casos explícitos
-    (true? v)  true
-    (false? v) false
+    ;; casos explícitos (ruta rápida: valores ya decodificados)
+    (boolean? v) v
 
     ;; nil-like → interpretamos como false
     (nil? v)   false
 
     (string? v)
-    (let [s (-> v str/trim str/lower-case)]
-      (cond
-        (#{"nil" "null"} s) false
-        (= s "true")        true
-        (= s "false")       false
-        :else               v))
+    (if (qspec/null-like? v)
+      false
+      (let [b (qspec/bool-like v)]
+        (if (nil? b) v b)))
 
     (keyword? v)
-    (let [s (-> v name str/lower-case)]
-      (cond
-        (#{"nil" "null"} s) false
-        (= s "true")        true
-        (= s "false")       false
-        :else               v))
+    (let [s (name v)]
+      (if (qspec/null-like? s)
+        false
+        (let [b (qspec/bool-like s)]
+          (if (nil? b) v b))))
 
     :else v))
 
@@ -5,7 +5,12 @@
             [spec.queue :as q]
             [spec.set :as s]
             [spec.map :as m]
-            [spec.deque :as dq]))
+            [spec.deque :as dq]
+            [spec.priorityqueue :as pq])
+  (:import [java.util.concurrent Callable ForkJoinPool Future]
+           [java.util.concurrent.atomic AtomicBoolean]
+           [phd.distributed.config SystemConfig]
+           [phd.distributed.verifier IntervalOrder SearchBudget]))
 
 ;; Tabla de especificaciones por tipo de estructura
 (def specs
@@ -17,18 +22,139 @@
    :deque {:init dq/deque-init
            :step dq/deque-step}
 
+   ;; Cola de prioridad (poll devuelve el mínimo)
+   :priority-queue {:init pq/pqueue-init
+                    :step pq/pqueue-step}
+
    ;; Conjunto
    :set   {:init s/set-init
-           :step s/set-step}
+           :step s/set-step
+           :key  (fn [{:keys [op arg]}]
+                   (when (#{:add :remove :contains} op)
+                     [arg]))}
 
    ;; Mapa
    :map   {:init m/map-init
-           :step m/map-step}})
+           :step m/map-step
+           :key  (fn [{:keys [op arg]}]
+                   (case op
+                     :put            [(first (m/normalize-kv-arg arg))]
+                     (:get :remove)  [(m/normalize-key arg)]
+                     nil))}})
 
-(defn linearizable?
-  "Returns true if XE is linearizable w.r.t. the given spec-type.
-   spec-type: :queue, :deque, :set, :map"
-  [spec-type xe]
+;; ============================================================
+;; Descomposición P-composicional (por clave)
+;; ============================================================
+
+(defn partition-by-key
+  "Parte ops-by-id en sub-historias por clave usando key-fn, que regresa
+   [k] para operaciones locales a la clave k o nil para cualquier otra.
+   Si alguna operación no es local (p.ej. size/clear) regresa nil: la
+   historia no se puede descomponer."
+  [key-fn ops-by-id]
+  (reduce-kv (fn [parts id op]
+               (if-let [[k] (key-fn op)]
+                 (assoc-in parts [k id] op)
+                 (reduced nil)))
+             {}
+             ops-by-id))
+
+(def ^:private parallel-threshold
+  "Número mínimo de operaciones para repartir las claves en el pool; por
+   debajo el costo de las tareas supera al de las búsquedas."
+  256)
+
+(defn- check-parts-parallel
+  "Una tarea por sub-historia en el ForkJoinPool común. check-fn recibe la
+   sub-historia y un AtomicBoolean compartido y regresa el testigo,
+   :violation o :aborted (ver jl/search-linearization); la primera tarea
+   que encuentra una violación lo activa, con lo que las búsquedas en curso
+   se abandonan, y se cancelan las que no han empezado. El SearchBudget no
+   se toca: agotarlo haría pasar un NOT_LINEARIZABLE por UNKNOWN.
+
+   Cualquier :violation gana sobre un :aborted, aunque otra clave haya
+   agotado el budget compartido al mismo tiempo."
+  [parts check-fn]
+  (let [pool    (ForkJoinPool/commonPool)
+        stop    (AtomicBoolean. false)
+        futures (mapv (fn [part]
+                        (.submit pool ^Callable (fn []
+                                                  (let [r (check-fn part stop)]
+                                                    (when (= r :violation) (.set stop true))
+                                                    r))))
+                      parts)]
+    (loop [[^Future f & more] futures
+           acc []]
+      (if (nil? f)
+        (if (some #{:aborted} acc) :aborted acc)
+        (let [r (.get f)]
+          (if (= r :violation)
+            (do (doseq [^Future g more] (.cancel g false))
+                :violation)
+            (recur more (conj acc r))))))))
+
+(defn- check-parts
+  "Verifica cada sub-historia, en paralelo si la historia es grande.
+   Regresa el vector de testigos (uno por sub-historia), :violation si
+   alguna no es linealizable o :aborted si alguna búsqueda se abandonó sin
+   que otra encontrara una violación."
+  [parts n-ops check-fn]
+  (if (< n-ops parallel-threshold)
+    (reduce (fn [acc part]
+              (let [r (check-fn part nil)]
+                (if (vector? r)
+                  (conj acc r)
+                  (reduced r))))
+            []
+            parts)
+    (check-parts-parallel parts check-fn)))
+
+(defn- merge-linearizations
+  "Combina los testigos por clave en una linealización de toda la historia.
+
+   Por localidad (Herlihy–Wing) la unión de los órdenes por clave con el
+   orden de tiempo real es acíclica, así que basta tomar en cada paso la
+   cabeza de alguna cadena que sea candidata en el IntervalOrder global.
+   Se recorren los candidatos y cada uno se busca en un índice
+   op -> (cadena, posición), así que cada paso cuesta O(candidatos) y no
+   O(cadenas)."
+  [ops-by-id chains]
+  (let [{:keys [ops order]} (jl/build-interval-order ops-by-id)
+        ^IntervalOrder order order
+        index    (zipmap (map :id ops) (range))
+        n        (count ops)
+        chain-of (int-array n -1)
+        pos-of   (int-array n)
+        chains   (mapv #(mapv (comp index :id) %) chains)
+        _        (doseq [[c chain] (map-indexed vector chains)
+                         [p i]     (map-indexed vector chain)]
+                   (aset chain-of (int i) (int c))
+                   (aset pos-of (int i) (int p)))
+        pos      (int-array (count chains))]
+    (loop [out (transient [])]
+      (if (= (count out) n)
+        (persistent! out)
+        (let [^ints cands (.candidates order)
+              i (loop [k 0]
+                  (when (< k (alength cands))
+                    (let [i (aget cands k)
+                          c (aget chain-of i)]
+                      (if (and (>= c 0) (== (aget pos c) (aget pos-of i)))
+                        i
+                        (recur (inc k))))))]
+          (when (nil? i)
+            (throw (ex-info "No chain head is ready: the per-key witnesses contradict locality"
+                            {:merged (count out) :ops n})))
+          (.markDone order (int i))
+          (let [c (aget chain-of i)]
+            (aset pos c (inc (aget pos c))))
+          (recur (conj! out (ops i))))))))
+
+(defn- search
+  "Busca la linealización de XE; regresa {:ops-by-id .. :chains [testigo ...]}
+   con un testigo por sub-historia, :violation si no es linealizable o
+   :aborted si se agotó el :budget."
+  [spec-type xe {:keys [parallel? ^SearchBudget budget] :or {parallel? SystemConfig/PARALLEL_SEARCH_ENABLED}}]
   ;;(println "==================================================")
   ;;(println ">>> linearizable? called with X_E of" (count xe) "events\n")
   ;;(println ">>> Spec type:" spec-type)
@@ -38,8 +164,7 @@
   ;;(println "--------------------------------------------------")
 
   (let [{:keys [ops-by-id]} (jl/build-ops xe)
-        {:keys [preds]}     (jl/build-precedence-graph ops-by-id)
-        {:keys [init step]} (get specs spec-type)]
+        {:keys [init step key]} (get specs spec-type)]
 
     (when (nil? init)
       (throw (ex-info (str "Unknown spec-type: " spec-type)
@@ -47,11 +172,105 @@
 
     (let [step-fn   (fn [state {:keys [op arg res]}]
                       (step state op arg res))
-          init-state (init)
-          result     (jl/check-linearizable-dfs ops-by-id preds init-state step-fn)]
+          check-fn   (fn [ops stop]
+                       (jl/search-linearization ops (init) step-fn :budget budget :stop stop))
+          whole-fn   (if parallel?
+                       (fn [ops]
+                         (or (jl/find-linearization-parallel ops (init) step-fn :budget budget)
+                             (if (and budget (.isExhausted budget)) :aborted :violation)))
+                       #(check-fn % nil))
+          ;; map/set son P-composicionales: linealizable sii cada clave lo es
+          parts      (when (and key SystemConfig/PARTITION_BY_KEY)
+                       (partition-by-key key ops-by-id))
+          chains     (if (next parts)
+                       (check-parts (vals parts) (count ops-by-id) check-fn)
+                       (let [r (whole-fn ops-by-id)]
+                         (if (vector? r) [r] r)))]
 
-    ;; (if result
+    ;; (if chains
     ;;    (println ">>> RESULT:  The history IS LINEARIZABLE.\n")
     ;;    (println ">>> RESULT:  The history is NOT linearizable.\n"))
 
-      result)))
\ No newline at end of file
+      (if (vector? chains)
+        {:ops-by-id ops-by-id
+         :chains    chains}
+        chains))))
+
+(defn check
+  "Veredicto de XE respecto a spec-type con las mismas opts que
+   linearizable?: {:verdict :linearizable :witness [...]},
+   {:verdict :violation} o {:verdict :aborted} si se agotó el :budget sin
+   que ninguna búsqueda encontrara una violación."
+  ([spec-type xe]
+   (check spec-type xe {}))
+  ([spec-type xe opts]
+   (let [r (search spec-type xe opts)]
+     (if (map? r)
+       (let [{:keys [ops-by-id chains]} r]
+         {:verdict :linearizable
+          :witness (if (next chains)
+                     (merge-linearizations ops-by-id chains)
+                     (first chains))})
+       {:verdict r}))))
+
+(defn linearizable?
+  "Returns true if XE is linearizable w.r.t. the given spec-type.
+   spec-type: :queue, :deque, :set, :map
+
+   opts:
+     :parallel?  usa la búsqueda paralela especulativa (jl/find-linearization-parallel)
+                 sobre la historia completa; por defecto verifier.parallel.search.
+                 Las sub-historias por clave ya se verifican en paralelo entre sí,
+                 así que cada una usa el DFS secuencial.
+     :budget     SearchBudget compartido por todas las búsquedas. Si se agota,
+                 false no es un veredicto (ver SearchBudget/isExhausted, o check)."
+  ([spec-type xe]
+   (linearizable? spec-type xe {}))
+  ([spec-type xe opts]
+   (map? (search spec-type xe opts))))
+
+(defn linearization
+  "Como linearizable?, pero regresa el testigo: el vector de operaciones
+   ({:id :op :arg :res :i-inv :i-ret ...}) en orden de linealización, o nil
+   si XE no es linealizable (o se agotó el :budget)."
+  ([spec-type xe]
+   (linearization spec-type xe {}))
+  ([spec-type xe opts]
+   (:witness (check spec-type xe opts))))
+
+;; ============================================================
+;; Verificación incremental (ventanas entre cortes quiescentes)
+;; ============================================================
+
+(defn initial-states
+  "Conjunto de estados iniciales de spec-type (uno solo)."
+  [spec-type]
+  (let [{:keys [init]} (get specs spec-type)]
+    (when (nil? init)
+      (throw (ex-info (str "Unknown spec-type: " spec-type)
+                      {:spec-type spec-type})))
+    #{(init)}))
+
+(defn advance-states
+  "Avanza el conjunto de estados sobrevivientes sobre una ventana de XE.
+
+   xe es el segmento de la historia entre dos cortes quiescentes (ninguna
+   operación pendiente en ningún hilo al inicio ni al final). Como ninguna
+   operación cruza el corte, la historia completa es linealizable sii cada
+   ventana lo es desde alguno de los estados en que terminó la anterior.
+
+   Regresa el conjunto de estados en que puede terminar la ventana (vacío
+   si no es linealizable desde ninguno de states), o nil si se agotó el
+   :budget de opts."
+  ([spec-type states xe]
+   (advance-states spec-type states xe {}))
+  ([spec-type states xe {:keys [budget]}]
+   (let [{:keys [ops-by-id]} (jl/build-ops xe)
+         {:keys [step]} (get specs spec-type)]
+     (when (nil? step)
+       (throw (ex-info (str "Unknown spec-type: " spec-type)
+                       {:spec-type spec-type})))
+     (jl/reachable-states ops-by-id states
+                          (fn [state {:keys [op arg res]}]
+                            (step state op arg res))
+                          :budget budget))))
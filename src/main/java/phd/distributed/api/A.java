@@ -2,12 +2,15 @@ package phd.distributed.api;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
@@ -18,6 +21,7 @@ public class A implements DistAlgorithm {
 
     private final List<MethodInf> methodList;
     private final Object instance;
+    private final EmptyPolicy emptyPolicy;
     private static final Logger LOGGER = LogManager.getLogger();
 
     public A(String className) {
@@ -53,13 +57,14 @@ public class A implements DistAlgorithm {
                     continue;
                 }
 
-                lista.add(new MethodInf(method));
+                lista.add(new MethodInf(method, execClass));
             }
         } catch (ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException e) {
             LOGGER.error("We got an error in class A", e);
         }
         this.instance = tempInstance;
         this.methodList = List.copyOf(lista);
+        this.emptyPolicy = EmptyPolicy.CATCH;
     }
 
     /**
@@ -73,6 +78,14 @@ public class A implements DistAlgorithm {
      * los métodos disponibles de la clase.
      */
     public A(String className, String... methodNames) {
+        this(className, EmptyPolicy.CATCH, methodNames);
+    }
+
+    /**
+     * Igual que {@link #A(String, String...)}, eligiendo cómo se invocan las
+     * operaciones que pueden encontrar el objeto vacío (ver {@link EmptyPolicy}).
+     */
+    public A(String className, EmptyPolicy emptyPolicy, String... methodNames) {
         Object tempInstance = null;
         List<MethodInf> lista = new ArrayList<>();
 
@@ -122,7 +135,7 @@ public class A implements DistAlgorithm {
                     continue;
                 }
 
-                MethodInf candidate = new MethodInf(method);
+                MethodInf candidate = new MethodInf(method, execClass);
                 MethodInf existing  = unique.get(name);
 
                 // Si no había uno, o este tiene MENOS parámetros, lo preferimos
@@ -168,8 +181,33 @@ public class A implements DistAlgorithm {
             LOGGER.error("We got an error in A(String, String...) for class {}", className, e);
         }
 
-        this.instance   = tempInstance;
-        this.methodList = List.copyOf(lista);
+        this.emptyPolicy = (emptyPolicy == null) ? EmptyPolicy.CATCH : emptyPolicy;
+        this.instance    = tempInstance;
+        this.methodList  = List.copyOf(substitute(lista, this.emptyPolicy));
+    }
+
+    /**
+     * Under NON_THROWING, swaps each method for its non-throwing counterpart
+     * (remove -> poll, ...) so the history records the method that actually
+     * runs. Keeps one entry per name if both were requested.
+     */
+    private static List<MethodInf> substitute(List<MethodInf> methods, EmptyPolicy policy) {
+        if (policy != EmptyPolicy.NON_THROWING) {
+            return methods;
+        }
+        Map<String, MethodInf> byName = new LinkedHashMap<>();
+        for (MethodInf m : methods) {
+            MethodInf target = (m.getNonThrowing() != null) ? m.getNonThrowing() : m;
+            byName.putIfAbsent(target.getName(), target);
+        }
+        return new ArrayList<>(byName.values());
+    }
+
+    /** Exceptions a state-dependent method throws when the object is empty. */
+    private static boolean isEmptyResult(Exception e) {
+        return e instanceof NoSuchElementException
+            || e instanceof EmptyStackException
+            || e instanceof IndexOutOfBoundsException;
     }
     // Constructor 2
 
@@ -180,28 +218,36 @@ public class A implements DistAlgorithm {
             return null;
         }
 
-        Method method = m.getMethod();
-        LOGGER.info("Invoking: {} with args: {}", method.getName(), Arrays.toString(args));
-
-        try {
-            String methodName = method.getName();
-            if (isStateDependent(methodName) && isEmpty()) {
-                LOGGER.warn("Skipping {} on empty collection", methodName);
-                return null;
-            }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Invoking: {} with args: {}", m.getName(), Arrays.toString(args));
+        }
 
-            int expectedParams = method.getParameterCount();
-            int actualParams = (args == null) ? 0 : args.length;
+        int actualParams = (args == null) ? 0 : args.length;
+        if (m.getArity() != actualParams) {
+            LOGGER.warn("Parameter count mismatch for {}: expected {}, got {}", m.getName(), m.getArity(), actualParams);
+            return null;
+        }
 
-            if (expectedParams != actualParams) {
-                LOGGER.warn("Parameter count mismatch for {}: expected {}, got {}", methodName, expectedParams, actualParams);
+        // Exactly one call on the object under test per recorded operation,
+        // and it is the recorded method
+        try {
+            return m.invoke(this.instance, args);
+        } catch (Exception e) {
+            if (m.isStateDependent() && isEmptyResult(e)) {
+                // The spec's result for an operation on an empty object
+                LOGGER.debug("{} found the object empty", m.getName());
                 return null;
             }
-
-            return method.invoke(this.instance, args);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            LOGGER.error("Error Invoking {}", method.getName(), e);
+            // Same contract as Method.invoke did: whatever the method throws
+            // is logged and the operation returns null
+            LOGGER.error("Error Invoking {}", m.getName(), e);
             return null;
+        } catch (Throwable e) {
+            // Errors (OutOfMemoryError, StackOverflowError, ...) are not results
+            if (e instanceof Error err) {
+                throw err;
+            }
+            throw new UndeclaredThrowableException(e);
         }
     }
 
@@ -210,39 +256,7 @@ public class A implements DistAlgorithm {
         return this.methodList;
     }
 
-    /**
-     * Checks if a method is state-dependent and might fail on empty collections
-     */
-    private boolean isStateDependent(String methodName) {
-        return methodName.equals("remove") || methodName.equals("removeLast") ||
-               methodName.equals("removeFirst") || methodName.equals("element") ||
-               methodName.equals("peek") || methodName.equals("poll") ||
-               methodName.equals("pop") || methodName.equals("get") ||
-               methodName.equals("charAt");
-    }
-
-    /**
-     * Checks if the instance is an empty collection
-     */
-    private boolean isEmpty() {
-        if (this.instance == null) {
-            return true;
-        }
-
-        try {
-            if (this.instance instanceof java.util.Collection) {
-                return ((java.util.Collection<?>) this.instance).isEmpty();
-            }
-            if (this.instance instanceof java.util.Map) {
-                return ((java.util.Map<?, ?>) this.instance).isEmpty();
-            }
-            if (this.instance instanceof String) {
-                return ((String) this.instance).isEmpty();
-            }
-        } catch (Exception e) {
-            LOGGER.debug("Error checking if instance is empty", e);
-        }
-
-        return false;
+    public EmptyPolicy getEmptyPolicy() {
+        return emptyPolicy;
     }
 }
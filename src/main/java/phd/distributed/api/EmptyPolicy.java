@@ -0,0 +1,28 @@
+package phd.distributed.api;
+
+/**
+ * How {@link A} invokes operations that may find the object empty (poll,
+ * remove, element, pop, ...). Either way the producer issues exactly one
+ * call on the object under test per recorded operation; nothing probes its
+ * size beforehand, which would add unrecorded contention.
+ */
+public enum EmptyPolicy {
+
+    /**
+     * The recorded method is called as is. NoSuchElementException,
+     * EmptyStackException and IndexOutOfBoundsException thrown by a
+     * state-dependent method are mapped to null, the "empty" result of the
+     * specs. This is the default: a buggy remove() is exercised and checked.
+     */
+    CATCH,
+
+    /**
+     * Zero-argument throwing methods are replaced by their non-throwing
+     * counterpart when the class has one (remove/pop -> poll, element -> peek,
+     * removeFirst/Last -> pollFirst/Last, getFirst/Last -> peekFirst/Last),
+     * so an empty object yields null without an exception. The replacement
+     * happens in {@link A#methods()}, so the history records the method that
+     * runs (:poll, not :remove) and the throwing method is never exercised.
+     */
+    NON_THROWING
+}
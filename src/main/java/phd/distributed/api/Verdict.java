@@ -0,0 +1,18 @@
+package phd.distributed.api;
+
+/**
+ * Outcome of a linearizability check.
+ *
+ * UNKNOWN means the checker gave up (search budget, deadline, interrupt or
+ * an internal error) before finding either a linearization or a proof that
+ * none exists.
+ */
+public enum Verdict {
+    LINEARIZABLE,
+    NOT_LINEARIZABLE,
+    UNKNOWN;
+
+    public static Verdict of(boolean linearizable) {
+        return linearizable ? LINEARIZABLE : NOT_LINEARIZABLE;
+    }
+}
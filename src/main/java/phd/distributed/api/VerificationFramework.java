@@ -1,11 +1,20 @@
 package phd.distributed.api;
 
+import phd.distributed.config.SystemConfig;
 import phd.distributed.core.Executioner;
 import phd.distributed.datamodel.OperationCall;
 import phd.distributed.snapshot.Snapshot;
+import phd.distributed.verifier.SearchBudget;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.ISeq;
+import clojure.lang.Keyword;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ExecutionException;
@@ -13,6 +22,9 @@ import java.util.concurrent.TimeoutException;
 
 public class VerificationFramework {
 
+    // Extra wait in run() so a checker that hit the deadline can still report UNKNOWN
+    private static final Duration RESULT_GRACE = Duration.ofSeconds(1);
+
     public static VerificationBuilder verify(Class<?> algorithmClass) {
         return new VerificationBuilder(algorithmClass);
     }
@@ -43,6 +55,15 @@ public class VerificationFramework {
         private Long seed        = null;      // por si luego quieres controlar el WorkloadPattern
         private WorkloadPattern workload = null;
         private Snapshot customSnapshot = null; // To accept any other snapshot
+        private String checker   = "typelin"; // or "undo"
+        private Boolean parallelSearch = null; // null: verifier.parallel.search
+        private long maxSearchNodes = SystemConfig.SEARCH_MAX_NODES;
+        private boolean shrink   = SystemConfig.SHRINK_ENABLED;
+        private boolean online   = false;
+        private EmptyPolicy emptyPolicy = EmptyPolicy.CATCH;
+        private boolean roundPhasing = SystemConfig.PRODUCER_ROUND_PHASING;
+        private int jitterMicros = SystemConfig.PRODUCER_JITTER_MICROS;
+        private boolean virtualThreads = SystemConfig.PRODUCER_VIRTUAL_THREADS;
 
         public VerificationBuilder withCustomSnapshot(Snapshot snapshot) {
             this.customSnapshot = snapshot;
@@ -105,18 +126,110 @@ public class VerificationFramework {
             return this;
         }
 
-        /** Tipo de snapshot: "gAIsnap" o "rAwsnap" (CollectFAInc / CollectRAW). */
+        /** Tipo de snapshot: "gAIsnap", "casSnap" o "rAwsnap" (CollectFAInc / CollectCASInc / CollectRAW). */
         public VerificationBuilder withSnapshot(String snapType) {
             this.snapType = snapType;
             return this;
         }
 
+        /**
+         * Linearizability checker: "typelin" (Clojure DFS, default), "undo"
+         * (pure-Java JITLinUndoTester; queue, deque, set, map and priority-queue) or "incremental"
+         * (typelin window by window between quiescent points, bounded memory).
+         */
+        public VerificationBuilder withChecker(String checker) {
+            this.checker = checker;
+            return this;
+        }
+
+        /**
+         * Splits the typelin search across a work-stealing pool
+         * (verifier.parallel.threads workers). Ignored by the undo checker.
+         */
+        public VerificationBuilder withParallelSearch(boolean parallelSearch) {
+            this.parallelSearch = parallelSearch;
+            return this;
+        }
+
+        /**
+         * Maximum number of checker search nodes (&lt;= 0 for no limit). The search is
+         * also bounded by whatever remains of withTimeout(...) after the producers.
+         * A search that hits either bound reports {@link Verdict#UNKNOWN}.
+         */
+        public VerificationBuilder withSearchBudget(long maxNodes) {
+            this.maxSearchNodes = maxNodes;
+            return this;
+        }
+
+        /**
+         * Minimize non-linearizable histories with delta debugging and report the
+         * core in getViolations() (default: verifier.shrink.enabled). The shrink
+         * is not counted in the verifier time but adds to the wall-clock time of
+         * run(); it only gets what remains of withTimeout(...), and is skipped
+         * if nothing does.
+         */
+        public VerificationBuilder withShrinking(boolean shrink) {
+            this.shrink = shrink;
+            return this;
+        }
+
+        /**
+         * Check the history while the producers run: a consumer thread feeds the
+         * incremental checker from the GAIsnap log, so the verifier time is only
+         * the check of the last window. Other snapshots fall back to batch.
+         */
+        public VerificationBuilder withOnlineVerification(boolean online) {
+            this.online = online;
+            return this;
+        }
+
+        /**
+         * How operations that may find the object empty are invoked: as recorded,
+         * mapping the empty-object exceptions to the empty result (default), or
+         * through their non-throwing counterpart. See {@link EmptyPolicy}.
+         */
+        public VerificationBuilder withEmptyPolicy(EmptyPolicy emptyPolicy) {
+            this.emptyPolicy = emptyPolicy;
+            return this;
+        }
+
+        /**
+         * Run the producers in rounds: every thread does its k-th operation, then
+         * all of them sync (default: producer.round.phasing). More overlapping
+         * operations per run, so more chances to expose a violation.
+         */
+        public VerificationBuilder withRoundPhasing(boolean roundPhasing) {
+            this.roundPhasing = roundPhasing;
+            return this;
+        }
+
+        /**
+         * Random delay of up to jitterMicros microseconds before each operation
+         * (default: producer.jitter.micros, 0 for none).
+         */
+        public VerificationBuilder withJitterMicros(int jitterMicros) {
+            this.jitterMicros = jitterMicros;
+            return this;
+        }
+
+        /**
+         * Run every logical process on its own virtual thread (default:
+         * producer.virtual.threads), e.g. withThreads(2000) on a handful of cores.
+         * Pair it with gAIsnap or casSnap: rawsnap records a view of every
+         * process on each return, O(threads) per operation.
+         */
+        public VerificationBuilder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
         // ========================================================
         //  Synchronous execution
         // ========================================================
         public VerificationResult run() {
             try {
-                return runAsync().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                // The checker honors the deadline itself; leave it time to report UNKNOWN
+                return runAsync().get(timeout.plus(RESULT_GRACE).toMillis(), TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException("Verification interrupted", e);
@@ -131,6 +244,7 @@ public class VerificationFramework {
         //  Async execution - usando Executioner + JitLin
         // ========================================================
         public CompletableFuture<VerificationResult> runAsync() {
+            long startNanos = System.nanoTime();
             return CompletableFuture.supplyAsync(() -> {
                 try {
                     // 1) Construir DistAlgorithm usando tu wrapper A
@@ -144,16 +258,17 @@ public class VerificationFramework {
                             case "map"   -> new String[]{"put", "get", "remove"};
                             case "set"   -> new String[]{"add", "remove", "contains"};
                             case "deque" -> new String[]{"offerFirst", "offerLast", "pollFirst", "pollLast"};
+                            case "priority-queue" -> new String[]{"offer", "poll"};
                             default -> throw new IllegalArgumentException(
                                 "Unsupported objectType '" + objectType + "'. " +
-                                "Please set withObjectType(...) to one of: queue, map, set, deque " +
+                                "Please set withObjectType(...) to one of: queue, map, set, deque, priority-queue " +
                                 "or provide an explicit withMethods(...)."
                             );
                         };
                     }
 
                     DistAlgorithm algorithm =
-                        new A(implClassName, effectiveMethods);
+                        new A(implClassName, emptyPolicy, effectiveMethods);
 
                     // 2) Crear Executioner (usa snapshot según snapType + JitLin)
                     Executioner executioner;
@@ -163,6 +278,19 @@ public class VerificationFramework {
                         executioner = new Executioner(threads, operations, algorithm, objectType, snapType);
                     }
 
+                    executioner.setChecker(checker);
+                    executioner.setRoundPhasing(roundPhasing);
+                    executioner.setJitterMicros(jitterMicros);
+                    executioner.setVirtualThreads(virtualThreads);
+                    if (parallelSearch != null) {
+                        executioner.setParallelSearch(parallelSearch);
+                    }
+                    if (online) {
+                        // The online check starts with the producers and shares their deadline
+                        executioner.setOnlineVerification(true);
+                        executioner.setSearchBudget(maxSearchNodes, timeout);
+                    }
+
                     // 3) FASE PRODUCTORES
                     long producersStart = System.nanoTime();
 
@@ -185,9 +313,14 @@ public class VerificationFramework {
                     Duration producersTime =
                         Duration.ofNanos(producersEnd - producersStart);
 
-                    // 4) FASE VERIFICACIÓN (JitLin)
+                    // 4) FASE VERIFICACIÓN (JitLin), acotada por lo que resta del timeout
+                    //    (si ya no queda nada, el presupuesto nace agotado: UNKNOWN)
+                    Duration remaining = timeout.minusNanos(System.nanoTime() - startNanos);
+                    executioner.setSearchBudget(maxSearchNodes, remaining);
                     long verifierStart = System.nanoTime();
-                    boolean correct = executioner.taskVerifiers();
+                    executioner.taskVerifiers();
+                    Verdict verdict = executioner.getVerdict();
+                    SearchBudget budget = executioner.getSearchBudget();
                     long verifierEnd = System.nanoTime();
                     Duration verifierTime =
                         Duration.ofNanos(verifierEnd - verifierStart);
@@ -204,7 +337,25 @@ public class VerificationFramework {
                     //System.out.println("  ↳ Verifier phase time : " + verifierTime.toMillis() + " ms");
                     //System.out.println("  ↳ Total verification   : " + totalTime.toMillis() + " ms");
 
-                    return new VerificationResult(correct, totalTime, producersTime, verifierTime, null, stats);
+                    VerificationResult.SearchStatistics search = (budget == null) ? null :
+                        new VerificationResult.SearchStatistics(
+                            budget.nodes(), budget.elapsed(), budget.reason().name());
+
+                    // 5) Contraejemplo mínimo (fuera del tiempo del verificador),
+                    //    acotado por lo que resta del timeout para no perder el veredicto
+                    List<VerificationResult.Violation> violations = new ArrayList<>();
+                    Duration shrinkTime = timeout.minusNanos(System.nanoTime() - startNanos);
+                    if (verdict == Verdict.NOT_LINEARIZABLE && shrink
+                            && !shrinkTime.isNegative() && !shrinkTime.isZero()) {
+                        IPersistentVector core =
+                            executioner.shrinkViolation(SystemConfig.SHRINK_MAX_CHECKS, shrinkTime);
+                        if (core != null) {
+                            violations.add(violation(core));
+                        }
+                    }
+
+                    return new VerificationResult(verdict, totalTime, producersTime, verifierTime,
+                                                  violations, stats, search, executioner.getWitness());
 
                 } catch (Exception e) {
                     throw new RuntimeException("Verification failed", e);
@@ -212,4 +363,24 @@ public class VerificationFramework {
             });
         }
     }
-}
\ No newline at end of file
+
+    private static final Keyword KW_TID = Keyword.intern(null, "tid");
+    private static final Keyword KW_TYPE = Keyword.intern(null, "type");
+    private static final Keyword KW_INVOKE = Keyword.intern(null, "invoke");
+
+    /** Violation describing a minimized non-linearizable sub-history, one event per line. */
+    static VerificationResult.Violation violation(IPersistentVector core) {
+        StringBuilder trace = new StringBuilder();
+        TreeSet<Object> threads = new TreeSet<>();
+        int ops = 0;
+        for (ISeq s = core.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            threads.add(ev.get(KW_TID));
+            if (KW_INVOKE.equals(ev.get(KW_TYPE))) ops++;
+            if (trace.length() > 0) trace.append('\n');
+            trace.append(ev);
+        }
+        return new VerificationResult.Violation(
+            "Non-linearizable core: " + ops + " operations on threads " + threads, trace.toString());
+    }
+}
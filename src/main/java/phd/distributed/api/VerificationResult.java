@@ -11,11 +11,28 @@ public class VerificationResult {
     private final Duration verifiersTime;
     private final List<Violation> violations;
     private final ExecutionStatistics statistics;
+    private final Verdict verdict;
+    private final SearchStatistics search;
+    private final int[] witness;
 
 
     public VerificationResult(boolean correct, Duration executionTime, Duration producersTime, Duration verifierTime,
                             List<Violation> violations, ExecutionStatistics statistics) {
-        this.correct = correct;
+        this(Verdict.of(correct), executionTime, producersTime, verifierTime, violations, statistics, null);
+    }
+
+    public VerificationResult(Verdict verdict, Duration executionTime, Duration producersTime, Duration verifierTime,
+                            List<Violation> violations, ExecutionStatistics statistics, SearchStatistics search) {
+        this(verdict, executionTime, producersTime, verifierTime, violations, statistics, search, null);
+    }
+
+    public VerificationResult(Verdict verdict, Duration executionTime, Duration producersTime, Duration verifierTime,
+                            List<Violation> violations, ExecutionStatistics statistics, SearchStatistics search,
+                            int[] witness) {
+        this.verdict = verdict;
+        this.witness = witness;
+        this.correct = verdict == Verdict.LINEARIZABLE;
+        this.search = search;
         this.executionTime = executionTime;
         this.violations = violations != null ? violations : new ArrayList<>();
         this.statistics = statistics;
@@ -31,6 +48,24 @@ public class VerificationResult {
         return correct;
     }
 
+    /** LINEARIZABLE, NOT_LINEARIZABLE, or UNKNOWN when the checker gave up. */
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    /** Checker search statistics, or null if not collected. */
+    public SearchStatistics getSearchStatistics() {
+        return search;
+    }
+
+    /**
+     * Linearization witness: X_E positions of the invocations of all completed
+     * operations, in linearization order. Null unless LINEARIZABLE.
+     */
+    public int[] getWitness() {
+        return witness;
+    }
+
     public Duration getExecutionTime() {
         return executionTime;
     }
@@ -52,8 +87,8 @@ public class VerificationResult {
 
     @Override
     public String toString() {
-        return String.format("VerificationResult{correct=%s, time=%s, violations=%d}",
-            correct, executionTime, violations.size());
+        return String.format("VerificationResult{verdict=%s, time=%s, violations=%d}",
+            verdict, executionTime, violations.size());
     }
 
     public static class Violation {
@@ -96,4 +131,35 @@ public class VerificationResult {
             return eventsProcessed;
         }
     }
+
+    public static class SearchStatistics {
+        private final long nodesExplored;
+        private final Duration searchTime;
+        private final String stopReason;
+
+        public SearchStatistics(long nodesExplored, Duration searchTime, String stopReason) {
+            this.nodesExplored = nodesExplored;
+            this.searchTime = searchTime;
+            this.stopReason = stopReason;
+        }
+
+        public long getNodesExplored() {
+            return nodesExplored;
+        }
+
+        public Duration getSearchTime() {
+            return searchTime;
+        }
+
+        /** Why the search gave up ("NODES", "DEADLINE", "INTERRUPTED"), or "NONE". */
+        public String getStopReason() {
+            return stopReason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SearchStatistics{nodes=%d, time=%s, stop=%s}",
+                nodesExplored, searchTime, stopReason);
+        }
+    }
 }
@@ -158,7 +158,7 @@ public class WorkloadPattern {
 
     private boolean isWriteMethod(String objectType, String name) {
         return switch (objectType) {
-            case "queue" -> switch (name) {
+            case "queue", "priority-queue" -> switch (name) {
                 case "offer", "add", "put" -> true;
                 default -> false;
             };
@@ -180,7 +180,7 @@ public class WorkloadPattern {
 
     private boolean isReadMethod(String objectType, String name) {
         return switch (objectType) {
-            case "queue" -> switch (name) {
+            case "queue", "priority-queue" -> switch (name) {
             case "poll" -> true;
             default -> false;
             };
@@ -32,6 +32,28 @@ public class SystemConfig {
     public static final boolean PERFORMANCE_MONITORING_ENABLED;
     public static final boolean PERFORMANCE_PROFILING_ENABLED;
 
+    // Verifier Configuration
+    public static final long CONFIG_CACHE_MAX_BYTES;
+    public static final boolean PARTITION_BY_KEY;
+    public static final boolean PARALLEL_SEARCH_ENABLED;
+    public static final int PARALLEL_SEARCH_THREADS;
+    public static final int PARALLEL_FORK_DEPTH;
+    public static final long SEARCH_MAX_NODES;
+    public static final boolean SHRINK_ENABLED;
+    public static final int SHRINK_MAX_CHECKS;
+    public static final int INCREMENTAL_MAX_STATES;
+    public static final boolean ONLINE_RETAIN_HISTORY;
+
+    // Producer Configuration
+    public static final int PRODUCER_POOL_SIZE;
+    public static final boolean PRODUCER_POOL_REUSE;
+    public static final boolean PRODUCER_ROUND_PHASING;
+    public static final int PRODUCER_JITTER_MICROS;
+    public static final boolean PRODUCER_VIRTUAL_THREADS;
+
+    // Snapshot Configuration
+    public static final boolean SNAPSHOT_FREEZE_COLLECTIONS;
+
     static {
         loadConfiguration();
 
@@ -54,6 +76,25 @@ public class SystemConfig {
 
         PERFORMANCE_MONITORING_ENABLED = getBoolean("performance.monitoring.enabled", false);
         PERFORMANCE_PROFILING_ENABLED = getBoolean("performance.profiling.enabled", false);
+
+        CONFIG_CACHE_MAX_BYTES = getLong("verifier.config.cache.bytes", 64L * 1024 * 1024);
+        PARTITION_BY_KEY = getBoolean("verifier.partition.by.key", true);
+        PARALLEL_SEARCH_ENABLED = getBoolean("verifier.parallel.search", false);
+        PARALLEL_SEARCH_THREADS = getInt("verifier.parallel.threads", Runtime.getRuntime().availableProcessors());
+        PARALLEL_FORK_DEPTH = getInt("verifier.parallel.fork.depth", 4);
+        SEARCH_MAX_NODES = getLong("verifier.search.max.nodes", 0L);
+        SHRINK_ENABLED = getBoolean("verifier.shrink.enabled", true);
+        SHRINK_MAX_CHECKS = getInt("verifier.shrink.max.checks", 200);
+        INCREMENTAL_MAX_STATES = getInt("verifier.incremental.max.states", 10000);
+        ONLINE_RETAIN_HISTORY = getBoolean("verifier.online.retain.history", false);
+
+        PRODUCER_POOL_SIZE = getInt("producer.pool.size", Runtime.getRuntime().availableProcessors());
+        PRODUCER_POOL_REUSE = getBoolean("producer.pool.reuse", true);
+        PRODUCER_ROUND_PHASING = getBoolean("producer.round.phasing", false);
+        PRODUCER_JITTER_MICROS = getInt("producer.jitter.micros", 0);
+        PRODUCER_VIRTUAL_THREADS = getBoolean("producer.virtual.threads", false);
+
+        SNAPSHOT_FREEZE_COLLECTIONS = getBoolean("snapshot.freeze.collections", true);
     }
 
     private static void loadConfiguration() {
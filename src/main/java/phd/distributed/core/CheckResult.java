@@ -0,0 +1,34 @@
+package phd.distributed.core;
+
+import phd.distributed.api.Verdict;
+
+/**
+ * Verdict of a linearizability check together with its witness.
+ *
+ * The witness lists the X_E positions of the invocation events of all
+ * completed operations, in linearization order. It is only present when
+ * the verdict is LINEARIZABLE.
+ */
+public final class CheckResult {
+
+    private final Verdict verdict;
+    private final int[] witness;
+
+    public CheckResult(Verdict verdict, int[] witness) {
+        this.verdict = verdict;
+        this.witness = witness;
+    }
+
+    public static CheckResult of(Verdict verdict) {
+        return new CheckResult(verdict, null);
+    }
+
+    public Verdict verdict() {
+        return verdict;
+    }
+
+    /** Invocation positions in X_E in linearization order, or null. */
+    public int[] witness() {
+        return witness;
+    }
+}
@@ -1,13 +1,11 @@
 package phd.distributed.core;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import clojure.lang.IPersistentVector;
 
@@ -15,11 +13,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import phd.distributed.api.DistAlgorithm;
+import phd.distributed.api.Verdict;
 import phd.distributed.api.WorkloadPattern;
+import phd.distributed.config.SystemConfig;
 import phd.distributed.datamodel.OperationCall;
+import phd.distributed.snapshot.CollectCASInc;
 import phd.distributed.snapshot.CollectFAInc;
 import phd.distributed.snapshot.CollectRAW;
 import phd.distributed.snapshot.Snapshot;
+import phd.distributed.verifier.SearchBudget;
 
 public class Executioner {
     private static final Logger LOGGER = LogManager.getLogger(Executioner.class);
@@ -31,6 +33,10 @@ public class Executioner {
     private final Verifier verifier;
     private final Wrapper wrapper;
     private volatile long verifierNanos = -1L;
+    private boolean onlineVerification = false;
+    private boolean roundPhasing = SystemConfig.PRODUCER_ROUND_PHASING;
+    private int jitterMicros = SystemConfig.PRODUCER_JITTER_MICROS;
+    private boolean virtualThreads = SystemConfig.PRODUCER_VIRTUAL_THREADS;
 
  // ========= Helper para elegir snapshot según snapType =========
     private static Snapshot createSnapshot(String snapType, int processes) {
@@ -42,6 +48,9 @@ public class Executioner {
         switch (s) {
             case "gaisnap":
                 return new CollectFAInc(processes);
+            case "cassnap":
+                // GAIsnap ordering from a single-CAS clock (less contention)
+                return new CollectCASInc(processes);
             case "rawsnap":
                 return new CollectRAW(processes);
             default:
@@ -88,65 +97,124 @@ public class Executioner {
  
 
 
-    /** Default upper bound for waiting on the producer pool to finish. */
+    /** Default upper bound for waiting on the producers of a run to finish. */
     private static final long DEFAULT_POOL_TIMEOUT_SECONDS = 30;
 
+    /** Maximum number of parties of a single Phaser. */
+    private static final int MAX_PHASER_PARTIES = 65535;
+
+    /** Operation i of process pid. */
+    @FunctionalInterface
+    private interface OpSource {
+        OperationCall get(int pid, int i);
+    }
+
     /**
-     * Gracefully shut down the pool, awaiting termination and forcing
-     * interruption if the timeout is exceeded. Silent truncation of the
-     * run would invalidate benchmark measurements, so we log a warning
-     * and call {@code shutdownNow()} on timeout.
+     * Runs one producer per process on the shared {@link ProducerRuntime}
+     * (or on a throwaway one if producer.pool.reuse is false, or on virtual
+     * threads) and surfaces the exceptions of the producers that failed. The runtime releases all
+     * producers together; with round phasing they also sync after every
+     * operation, so operation k of every process overlaps.
      */
-    private static void shutdownAndAwait(ExecutorService pool, long timeout, TimeUnit unit) {
-        pool.shutdown();
-        try {
-            if (!pool.awaitTermination(timeout, unit)) {
-                LOGGER.warn("Producer pool did not terminate within {} {}; forcing shutdown. "
-                          + "Benchmark measurements for this run may be incomplete.",
-                          timeout, unit.name().toLowerCase());
-                pool.shutdownNow();
-                if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
-                    LOGGER.error("Producer pool did not terminate after shutdownNow().");
+    private void runProducers(OpSource source) {
+        startOnlineVerification();
+        final Phaser[] tiers = roundPhasing ? roundPhasers(processes) : null;
+        final int jitter = jitterMicros;
+        ProducerRuntime.Producer body = processId -> {
+            Phaser rounds = (tiers == null) ? null : tiers[processId / MAX_PHASER_PARTIES];
+            int opsForThisProc = opsFor(processId);
+            try {
+                for (int i = 0; i < opsForThisProc; i++) {
+                    if (jitter > 0) {
+                        pause(jitter);
+                    }
+                    wrapper.execute(processId, source.get(processId, i));
+                    if (rounds != null) {
+                        rounds.awaitAdvanceInterruptibly(rounds.arrive());
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Cancelled run: release the other producers instead of leaving them in a round
+                if (rounds != null) {
+                    rounds.forceTermination();
+                }
+                throw e;
+            } finally {
+                if (rounds != null) {
+                    // Processes with fewer operations leave; the rest keep syncing
+                    rounds.arriveAndDeregister();
                 }
             }
-        } catch (InterruptedException e) {
-            pool.shutdownNow();
-            Thread.currentThread().interrupt();
+        };
+
+        Throwable[] failures;
+        if (virtualThreads) {
+            failures = ProducerRuntime.runVirtual(processes, body, DEFAULT_POOL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } else {
+            ProducerRuntime runtime = SystemConfig.PRODUCER_POOL_REUSE
+                ? ProducerRuntime.shared()
+                : new ProducerRuntime(processes);
+            try {
+                failures = runtime.run(processes, body, DEFAULT_POOL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } finally {
+                if (!SystemConfig.PRODUCER_POOL_REUSE) {
+                    runtime.close();
+                }
+            }
+        }
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                LOGGER.error("Producer thread {} failed: {}", i, failures[i].getMessage(), failures[i]);
+            }
         }
     }
 
-    public void taskProducers() {
-        if (processes <= 0 || this.totalOps <= 0) {
-            return;
+    /**
+     * Round phasers for the given number of processes: process pid syncs on
+     * element pid / MAX_PHASER_PARTIES. A Phaser holds at most 65535 parties,
+     * so larger runs (e.g. on virtual threads) get a tree of child phasers
+     * under a common root; every child advances together with the root, and
+     * terminating one terminates the whole tree.
+     */
+    private static Phaser[] roundPhasers(int processes) {
+        if (processes <= MAX_PHASER_PARTIES) {
+            return new Phaser[] { new Phaser(processes) };
+        }
+        Phaser root = new Phaser();
+        Phaser[] tiers = new Phaser[(processes + MAX_PHASER_PARTIES - 1) / MAX_PHASER_PARTIES];
+        for (int k = 0; k < tiers.length; k++) {
+            tiers[k] = new Phaser(root, Math.min(MAX_PHASER_PARTIES, processes - k * MAX_PHASER_PARTIES));
         }
-        ExecutorService pool = Executors.newFixedThreadPool(processes);
+        return tiers;
+    }
 
-        int baseOpsPerProc = totalOps / processes;
-        int remainder = totalOps % processes;
+    /**
+     * Busy-waits a random delay in [0, maxMicros] microseconds. Spinning
+     * rather than parking keeps the delay at microsecond scale.
+     */
+    private static void pause(int maxMicros) {
+        long deadline = System.nanoTime()
+            + ThreadLocalRandom.current().nextLong(maxMicros * 1000L + 1);
+        while (System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+        }
+    }
 
-        List<Future<?>> futures = new ArrayList<>();
-        for (int pid = 0; pid < processes; pid++) {
-            final int processId = pid;
-            final int opsForThisProc = baseOpsPerProc + (pid < remainder ? 1 : 0);
+    /** Operations of process pid: totalOps split evenly, the first ones take the remainder. */
+    private int opsFor(int pid) {
+        return totalOps / processes + (pid < totalOps % processes ? 1 : 0);
+    }
 
-            futures.add(pool.submit(() -> {
-                for (int i = 0; i < opsForThisProc; i++) {
-                    OperationCall call = OperationCall.chooseOp(A, processId);
-                    wrapper.execute(processId, call);
-                }
-            }));
-        }
-        shutdownAndAwait(pool, DEFAULT_POOL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        // Surface any exceptions that were silently swallowed by pool.submit()
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                futures.get(i).get();
-            } catch (ExecutionException e) {
-                LOGGER.error("Producer thread {} failed: {}", i, e.getCause().getMessage(), e.getCause());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    /** Index in a seeded workload of the first operation of process pid. */
+    private int firstOpOf(int pid) {
+        return pid * (totalOps / processes) + Math.min(pid, totalOps % processes);
+    }
+
+    public void taskProducers() {
+        if (processes <= 0 || this.totalOps <= 0) {
+            return;
         }
+        runProducers((processId, i) -> OperationCall.chooseOp(A, processId));
     }
 
     public void taskProducersSeed(List<OperationCall> ops) {
@@ -161,48 +229,112 @@ public class Executioner {
             );
         }
 
-        ExecutorService pool = Executors.newFixedThreadPool(processes);
+        // el tid lógico es processId; sus operaciones empiezan en firstOpOf(processId)
+        runProducers((processId, i) -> ops.get(firstOpOf(processId) + i));
+    }
 
-        int baseOpsPerProc = totalOps / processes;
-        int remainder      = totalOps % processes;
+    /**
+     * Round phasing (default: producer.round.phasing): every process does its
+     * k-th operation, then all of them sync before operation k+1. Maximizes
+     * overlapping operations per run at the cost of throughput.
+     */
+    public void setRoundPhasing(boolean roundPhasing) {
+        this.roundPhasing = roundPhasing;
+    }
 
-        int globalIndex = 0; // índice en la lista ops
-        List<Future<?>> futures = new ArrayList<>();
+    /**
+     * Random delay in [0, jitterMicros] microseconds before each operation
+     * (default: producer.jitter.micros; 0 disables it). Varies the
+     * interleavings a run explores, mostly useful with round phasing.
+     */
+    public void setJitterMicros(int jitterMicros) {
+        this.jitterMicros = Math.max(0, jitterMicros);
+    }
 
-        for (int pid = 0; pid < processes; pid++) {
-            final int processId      = pid;
-            final int opsForThisProc = baseOpsPerProc + (pid < remainder ? 1 : 0);
-            final int startIndex     = globalIndex;
+    /**
+     * Runs each process on its own virtual thread instead of the platform
+     * producer pool (default: producer.virtual.threads), so a run can simulate
+     * thousands of logical clients on a few cores. The snapshot logs only
+     * allocate storage for the processes that actually record events.
+     * RAWsnap still collects every process on each return (see CollectRAW),
+     * so it does not scale to such runs; a warning is logged for it.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        if (virtualThreads && c instanceof CollectRAW) {
+            LOGGER.warn("rawsnap records a view of all {} processes on every return (O(p) time and memory); "
+                        + "use gAIsnap or casSnap for large virtual-thread runs", processes);
+        }
+    }
 
-            globalIndex += opsForThisProc;
+    /** Linearizability checker used by taskVerifiers(): "typelin" (default), "undo" or "incremental". */
+    public void setChecker(String checker) {
+        verifier.setChecker(checker);
+    }
 
-            futures.add(pool.submit(() -> {
-                for (int i = 0; i < opsForThisProc; i++) {
-                    int idx = startIndex + i;      // índice global en la lista
-                    OperationCall call = ops.get(idx);
-                    // aquí el tid lógico es processId, igual que en taskProducers()
-                    wrapper.execute(processId, call);
-                }
-            }));
-        }
+    /** Parallel speculative search for the typelin checker (default: verifier.parallel.search). */
+    public void setParallelSearch(boolean parallelSearch) {
+        verifier.setParallelSearch(parallelSearch);
+    }
 
-        shutdownAndAwait(pool, DEFAULT_POOL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                futures.get(i).get();
-            } catch (ExecutionException e) {
-                LOGGER.error("Producer thread {} failed: {}", i, e.getCause().getMessage(), e.getCause());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    /** Node and wall-clock bounds for the linearizability search (see Verifier#setSearchBudget). */
+    public void setSearchBudget(long maxNodes, Duration timeout) {
+        verifier.setSearchBudget(maxNodes, timeout);
+    }
+
+    /**
+     * Checks the history while the producers run (see Verifier#startOnline);
+     * taskVerifiers() then only waits for the tail. GAIsnap snapshots only,
+     * other snapshots are checked in batch. Every producer run must then be
+     * followed by taskVerifiers() before the next one.
+     */
+    public void setOnlineVerification(boolean onlineVerification) {
+        this.onlineVerification = onlineVerification;
+    }
+
+    /** Keep every event of an online run (see Verifier#setOnlineRetainHistory). */
+    public void setOnlineRetainHistory(boolean retainHistory) {
+        verifier.setOnlineRetainHistory(retainHistory);
+    }
+
+    private void startOnlineVerification() {
+        if (onlineVerification) {
+            verifier.startOnline(objectType);
         }
     }
 
+    /** Tri-state verdict of the last taskVerifiers() call. */
+    public Verdict getVerdict() {
+        return verifier.getLastVerdict();
+    }
+
+    /** Budget consumed by the last taskVerifiers() call. */
+    public SearchBudget getSearchBudget() {
+        return verifier.getLastBudget();
+    }
+
+    /** Linearization found by the last taskVerifiers() call (see Verifier#getLastWitness). */
+    public int[] getWitness() {
+        return verifier.getLastWitness();
+    }
+
+    /** Minimized counterexample of the last taskVerifiers() call, or null if it passed. */
+    public IPersistentVector shrinkViolation(int maxChecks) {
+        return verifier.shrinkLastViolation(maxChecks);
+    }
+
+    /** Like shrinkViolation(int), with the whole shrink bounded by timeout. */
+    public IPersistentVector shrinkViolation(int maxChecks, Duration timeout) {
+        return verifier.shrinkLastViolation(maxChecks, timeout);
+    }
+
     public boolean taskVerifiers() {
         long start = System.nanoTime();
         boolean ok;
         try {
-            ok = verifier.checkLinearizabilityJitLin(this.objectType);
+            ok = verifier.isOnline()
+                ? verifier.finishOnline()
+                : verifier.checkLinearizabilityJitLin(this.objectType);
         } finally {
             this.verifierNanos = System.nanoTime() - start;
         }
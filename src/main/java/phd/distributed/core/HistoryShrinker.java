@@ -0,0 +1,305 @@
+package phd.distributed.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.ISeq;
+import clojure.lang.ITransientCollection;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentVector;
+import phd.distributed.api.Verdict;
+
+/**
+ * Delta-debugging (ddmin) minimizer for non-linearizable histories.
+ *
+ * Works on the completed operations of an X_E: pending invocations are
+ * dropped up front, since neither checker linearizes them. It first tries to
+ * drop whole threads, then runs ddmin over the remaining operations, keeping
+ * every sub-history the oracle still reports as NOT_LINEARIZABLE. The result
+ * is 1-minimal over value groups (removing any single group makes it pass,
+ * or the check budget ran out first).
+ *
+ * Sub-histories are identified by the bitset of kept operations and their
+ * outcome is cached, so ddmin never re-checks the same candidate. An UNKNOWN
+ * verdict counts as passing: the shrinker only keeps proven violations.
+ *
+ * Removing operations is not monotone for linearizability: dropping the
+ * offer(v) of a kept poll() -&gt; v makes that correct poll unexplainable, and
+ * dropping the poll() -&gt; v that consumed v makes a later poll of another
+ * value look out of order. So candidates are closed over value groups before
+ * they are checked: operations that share an argument or result value
+ * (booleans and nil excluded) are kept or dropped together, e.g. offer(v)
+ * with every poll() -&gt; v, or put(k, v) with every get(k) and remove(k).
+ * Restricting a correct queue, deque, priority queue, set or map history to
+ * whole value groups keeps it correct, so the core is a violation of the
+ * recorded results and not an artifact of the shrink. A value that only one
+ * operation mentions, like a poll of a value never offered, forms its own
+ * group, so the culprit can still be isolated.
+ */
+public final class HistoryShrinker {
+
+    /** Linearizability check of a sub-history. */
+    @FunctionalInterface
+    public interface Oracle {
+        Verdict check(IPersistentVector xe);
+    }
+
+    private static final Keyword KW_TYPE   = Keyword.intern(null, "type");
+    private static final Keyword KW_OP_ID  = Keyword.intern(null, "op-id");
+    private static final Keyword KW_TID    = Keyword.intern(null, "tid");
+    private static final Keyword KW_ARG    = Keyword.intern(null, "arg");
+    private static final Keyword KW_RES    = Keyword.intern(null, "res");
+    private static final Keyword KW_RETURN = Keyword.intern(null, "return");
+
+    private final Oracle oracle;
+    private final int maxChecks;
+    private final Map<BitSet, Boolean> cache = new HashMap<>();
+
+    private List<Object> events;     // completed events of the input, in X_E order
+    private int[] eventOp;           // event -> operation index
+    private int[] opTid;             // operation index -> thread id
+    private int[][] groupOf;         // operation index -> operations of its value group
+    private int checks;
+    private int cacheHits;
+
+    /**
+     * @param oracle    checker used on every candidate sub-history
+     * @param maxChecks maximum number of oracle calls (cache hits are free)
+     */
+    public HistoryShrinker(Oracle oracle, int maxChecks) {
+        this.oracle = oracle;
+        this.maxChecks = maxChecks;
+    }
+
+    /**
+     * Returns a minimized sub-history of xe that is still NOT_LINEARIZABLE,
+     * or null if xe itself is not proven non-linearizable.
+     */
+    public IPersistentVector shrink(IPersistentVector xe) {
+        index(xe);
+        int n = opTid.length;
+        BitSet all = new BitSet(n);
+        all.set(0, n);
+        if (!failing(all)) {
+            return null;
+        }
+
+        BitSet keep = dropThreads(all);
+        keep = ddmin(keep);
+        return build(keep);
+    }
+
+    /** Oracle calls made by the last shrink(). */
+    public int checks() {
+        return checks;
+    }
+
+    /** Candidates answered from the cache by the last shrink(). */
+    public int cacheHits() {
+        return cacheHits;
+    }
+
+    private void index(IPersistentVector xe) {
+        Set<Object> completed = new HashSet<>();
+        for (ISeq s = xe.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            if (KW_RETURN.equals(ev.get(KW_TYPE))) {
+                completed.add(ev.get(KW_OP_ID));
+            }
+        }
+
+        Map<Object, Integer> opIndex = new LinkedHashMap<>();
+        List<Integer> tids = new ArrayList<>();
+        List<Integer> evOps = new ArrayList<>();
+        events = new ArrayList<>();
+        for (ISeq s = xe.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            Object opId = ev.get(KW_OP_ID);
+            if (!completed.contains(opId)) {
+                continue;
+            }
+            Integer op = opIndex.get(opId);
+            if (op == null) {
+                op = opIndex.size();
+                opIndex.put(opId, op);
+                tids.add(((Number) ev.get(KW_TID)).intValue());
+            }
+            events.add(ev);
+            evOps.add(op);
+        }
+        eventOp = evOps.stream().mapToInt(Integer::intValue).toArray();
+        opTid = tids.stream().mapToInt(Integer::intValue).toArray();
+        indexDependencies();
+        cache.clear();
+        checks = 0;
+        cacheHits = 0;
+    }
+
+    /** Fills groupOf[]: union-find of the operations over their argument and result values. */
+    private void indexDependencies() {
+        int n = opTid.length;
+        int[] parent = new int[n];
+        for (int op = 0; op < n; op++) {
+            parent[op] = op;
+        }
+        Map<Object, Integer> firstOp = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            Map<?, ?> ev = (Map<?, ?>) events.get(i);
+            int op = eventOp[i];
+            Object value = KW_RETURN.equals(ev.get(KW_TYPE)) ? ev.get(KW_RES) : ev.get(KW_ARG);
+            for (Object v : values(value)) {
+                Integer other = firstOp.putIfAbsent(v, op);
+                if (other != null) {
+                    parent[find(parent, op)] = find(parent, other);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int op = 0; op < n; op++) {
+            groups.computeIfAbsent(find(parent, op), k -> new ArrayList<>()).add(op);
+        }
+        groupOf = new int[n][];
+        for (List<Integer> g : groups.values()) {
+            int[] members = g.stream().mapToInt(Integer::intValue).toArray();
+            for (int op : members) {
+                groupOf[op] = members;
+            }
+        }
+    }
+
+    private static int find(int[] parent, int op) {
+        while (parent[op] != op) {
+            parent[op] = parent[parent[op]];
+            op = parent[op];
+        }
+        return op;
+    }
+
+    /** Values an argument or result refers to: tuple elements, booleans and nil excluded. */
+    private static List<Object> values(Object value) {
+        List<Object> out = new ArrayList<>();
+        if (value instanceof IPersistentVector tuple) {
+            for (int i = 0; i < tuple.count(); i++) {
+                out.addAll(values(tuple.nth(i)));
+            }
+        } else if (value != null && !(value instanceof Boolean)) {
+            out.add(value);
+        }
+        return out;
+    }
+
+    /** Smallest union of value groups that contains keep. */
+    private BitSet close(BitSet keep) {
+        BitSet closed = (BitSet) keep.clone();
+        for (int op = keep.nextSetBit(0); op >= 0; op = keep.nextSetBit(op + 1)) {
+            for (int member : groupOf[op]) {
+                closed.set(member);
+            }
+        }
+        return closed;
+    }
+
+    private BitSet dropThreads(BitSet keep) {
+        Set<Integer> threads = new TreeSet<>();
+        for (int op = keep.nextSetBit(0); op >= 0; op = keep.nextSetBit(op + 1)) {
+            threads.add(opTid[op]);
+        }
+        for (int t : threads) {
+            BitSet candidate = (BitSet) keep.clone();
+            for (int op = candidate.nextSetBit(0); op >= 0; op = candidate.nextSetBit(op + 1)) {
+                if (opTid[op] == t) candidate.clear(op);
+            }
+            candidate = close(candidate);
+            if (!candidate.isEmpty() && !candidate.equals(keep) && failing(candidate)) {
+                keep = candidate;
+            }
+        }
+        return keep;
+    }
+
+    private BitSet ddmin(BitSet keep) {
+        int granularity = 2;
+        while (keep.cardinality() >= 2 && checks < maxChecks) {
+            int[] ops = keep.stream().toArray();
+            List<BitSet> chunks = split(ops, granularity);
+            boolean reduced = false;
+
+            // Reduce to a chunk
+            for (BitSet chunk : chunks) {
+                chunk = close(chunk);
+                if (!chunk.equals(keep) && failing(chunk)) {
+                    keep = chunk;
+                    granularity = 2;
+                    reduced = true;
+                    break;
+                }
+            }
+            // Reduce to a complement
+            if (!reduced) {
+                for (BitSet chunk : chunks) {
+                    BitSet complement = (BitSet) keep.clone();
+                    complement.andNot(chunk);
+                    complement = close(complement);
+                    if (!complement.isEmpty() && !complement.equals(keep) && failing(complement)) {
+                        keep = complement;
+                        granularity = Math.max(granularity - 1, 2);
+                        reduced = true;
+                        break;
+                    }
+                }
+            }
+            if (!reduced) {
+                if (granularity >= ops.length) break;
+                granularity = Math.min(granularity * 2, ops.length);
+            }
+        }
+        return keep;
+    }
+
+    private static List<BitSet> split(int[] ops, int parts) {
+        List<BitSet> chunks = new ArrayList<>(parts);
+        int start = 0;
+        for (int i = 0; i < parts; i++) {
+            int end = start + (ops.length - start) / (parts - i);
+            BitSet chunk = new BitSet();
+            for (int k = start; k < end; k++) chunk.set(ops[k]);
+            if (!chunk.isEmpty()) chunks.add(chunk);
+            start = end;
+        }
+        return chunks;
+    }
+
+    private boolean failing(BitSet keep) {
+        Boolean cached = cache.get(keep);
+        if (cached != null) {
+            cacheHits++;
+            return cached;
+        }
+        if (checks >= maxChecks) {
+            return false;
+        }
+        checks++;
+        boolean fails = oracle.check(build(keep)) == Verdict.NOT_LINEARIZABLE;
+        cache.put((BitSet) keep.clone(), fails);
+        return fails;
+    }
+
+    private IPersistentVector build(BitSet keep) {
+        ITransientCollection xe = PersistentVector.EMPTY.asTransient();
+        for (int i = 0; i < eventOp.length; i++) {
+            if (keep.get(eventOp[i])) {
+                xe = xe.conj(events.get(i));
+            }
+        }
+        return (IPersistentVector) xe.persistent();
+    }
+}
@@ -0,0 +1,223 @@
+package phd.distributed.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import clojure.java.api.Clojure;
+import clojure.lang.IFn;
+import clojure.lang.IPersistentCollection;
+import clojure.lang.IPersistentVector;
+import clojure.lang.ISeq;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentArrayMap;
+import clojure.lang.PersistentVector;
+import phd.distributed.api.Verdict;
+import phd.distributed.config.SystemConfig;
+import phd.distributed.verifier.SearchBudget;
+
+/**
+ * Incremental linearizability checker over a stream of X_E events.
+ *
+ * Events are buffered in a window until a quiescent cut, a point where no
+ * operation is pending on any thread. Since no operation spans the cut, the
+ * history is linearizable iff every window is linearizable from one of the
+ * abstract states the previous window may end in. At each cut the window is
+ * checked with typelin/advance-states, which turns the set of surviving
+ * states into the set of states the window may end in, and is then
+ * discarded. Memory is bounded by the longest window plus the surviving
+ * states, not by the length of the run.
+ *
+ * Events must arrive in X_E order (a valid linear extension of the
+ * snapshot order). An operation that never returns blocks further cuts;
+ * its window is only checked by {@link #finish()}, which, like the batch
+ * checkers, ignores pending operations.
+ *
+ * If the surviving states exceed maxStates or a window runs out of search
+ * budget, the checker stops with UNKNOWN rather than dropping states, which
+ * could report a false violation. Not thread-safe: one feeder thread.
+ */
+public final class IncrementalLinChecker {
+
+    private static final Logger LOGGER = LogManager.getLogger(IncrementalLinChecker.class);
+
+    private static final IFn advanceFn;
+    private static final IFn initialFn;
+    private static final IFn keywordFn;
+
+    private static final Keyword KW_TYPE   = Keyword.intern(null, "type");
+    private static final Keyword KW_OP_ID  = Keyword.intern(null, "op-id");
+    private static final Keyword KW_INVOKE = Keyword.intern(null, "invoke");
+
+    static {
+        Clojure.var("clojure.core", "require").invoke(Clojure.read("typelin"));
+        advanceFn = Clojure.var("typelin", "advance-states");
+        initialFn = Clojure.var("typelin", "initial-states");
+        keywordFn = Clojure.var("clojure.core", "keyword");
+    }
+
+    private final Object specType;
+    private final int maxStates;
+    private final SearchBudget budget;
+
+    private final List<Object> window = new ArrayList<>();
+    private final Set<Object> open = new HashSet<>();
+    private IPersistentCollection states;
+    private IPersistentVector failedWindow;
+    private IPersistentCollection failedStates;
+    private Verdict verdict = Verdict.LINEARIZABLE;
+    private long events;
+    private long cuts;
+    private int maxWindow;
+    private boolean quiet;
+
+    /**
+     * @param objectType "queue", "deque", "set", "map" or "priority-queue"
+     * @param maxStates  cap on surviving abstract states (&lt;= 0 for no cap)
+     * @param budget     search budget shared by all windows of the stream
+     */
+    public IncrementalLinChecker(String objectType, int maxStates, SearchBudget budget) {
+        this(objectType, maxStates, budget, null);
+    }
+
+    /**
+     * Like {@link #IncrementalLinChecker(String, int, SearchBudget)}, starting
+     * from the given abstract states instead of the initial one (e.g. the
+     * {@link #failedStates()} of an earlier check, to re-check its window).
+     *
+     * @param states surviving states to start from, or null for the initial state
+     */
+    public IncrementalLinChecker(String objectType, int maxStates, SearchBudget budget,
+                                 IPersistentCollection states) {
+        this.specType = keywordFn.invoke(objectType);
+        this.maxStates = maxStates;
+        this.budget = budget;
+        this.states = (states != null) ? states : (IPersistentCollection) initialFn.invoke(specType);
+    }
+
+    public IncrementalLinChecker(String objectType) {
+        this(objectType, SystemConfig.INCREMENTAL_MAX_STATES,
+             new SearchBudget(SystemConfig.SEARCH_MAX_NODES, null));
+    }
+
+    /** If quiet, the verdict and why the check stopped are logged at DEBUG. */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /** Feeds one X_E event ({:type :invoke/:return :op-id ...}). */
+    public void accept(Object event) {
+        if (verdict != Verdict.LINEARIZABLE) {
+            return;
+        }
+        events++;
+        window.add(event);
+        Map<?, ?> ev = (Map<?, ?>) event;
+        if (KW_INVOKE.equals(ev.get(KW_TYPE))) {
+            open.add(ev.get(KW_OP_ID));
+        } else {
+            open.remove(ev.get(KW_OP_ID));
+            if (open.isEmpty()) {
+                cut();
+            }
+        }
+    }
+
+    /** Feeds every event of a chunk of X_E, in order. */
+    public void acceptAll(IPersistentVector chunk) {
+        for (ISeq s = chunk.seq(); s != null; s = s.next()) {
+            accept(s.first());
+        }
+    }
+
+    /**
+     * Checks the last, possibly non-quiescent window and returns the verdict
+     * for the whole stream. Operations still pending are ignored.
+     */
+    public Verdict finish() {
+        if (verdict == Verdict.LINEARIZABLE && !window.isEmpty()) {
+            cut();
+        }
+        LOGGER.log(quiet ? Level.DEBUG : Level.INFO, "[IncrementalLinChecker] {} events, {} cuts, longest window {} events, {} surviving states: {}",
+                    events, cuts, maxWindow, (states == null) ? 0 : states.count(), verdict);
+        return verdict;
+    }
+
+    /** Verdict so far: NOT_LINEARIZABLE and UNKNOWN are final. */
+    public Verdict verdict() {
+        return verdict;
+    }
+
+    public long cuts() { return cuts; }
+
+    public int windowSize() { return window.size(); }
+
+    public int maxWindowSize() { return maxWindow; }
+
+    public int survivingStates() { return (states == null) ? 0 : states.count(); }
+
+    /**
+     * The window no surviving state could linearize, once the verdict is
+     * NOT_LINEARIZABLE; null otherwise. It starts at a quiescent cut, so its
+     * operations are complete, but it is checked from the states the
+     * previous windows left, not from the initial one.
+     */
+    public IPersistentVector failedWindow() { return failedWindow; }
+
+    /**
+     * The surviving states the {@link #failedWindow()} was checked from, once
+     * the verdict is NOT_LINEARIZABLE; null otherwise.
+     */
+    public IPersistentCollection failedStates() { return failedStates; }
+
+    private void cut() {
+        cuts++;
+        maxWindow = Math.max(maxWindow, window.size());
+        IPersistentVector xe = PersistentVector.create(window);
+        window.clear();
+
+        Object opts = PersistentArrayMap.createAsIfByAssoc(
+                new Object[] { keywordFn.invoke("budget"), budget });
+        Object next;
+        try {
+            next = advanceFn.invoke(specType, states, xe, opts);
+        } catch (Throwable t) {
+            LOGGER.error("[IncrementalLinChecker] Error calling typelin/advance-states", t);
+            stop(Verdict.UNKNOWN);
+            return;
+        }
+
+        if (next == null) {
+            LOGGER.log(quiet ? Level.DEBUG : Level.WARN, "[IncrementalLinChecker] Window of {} events gave up ({}) after {} nodes",
+                        xe.count(), budget.reason(), budget.nodes());
+            stop(Verdict.UNKNOWN);
+            return;
+        }
+        IPersistentCollection before = states;
+        states = (IPersistentCollection) next;
+        if (states.count() == 0) {
+            LOGGER.log(quiet ? Level.DEBUG : Level.ERROR, "[IncrementalLinChecker] Window of {} events ending at event {} is NOT linearizable",
+                         xe.count(), events);
+            stop(Verdict.NOT_LINEARIZABLE);
+            failedWindow = xe;
+            failedStates = before;
+        } else if (maxStates > 0 && states.count() > maxStates) {
+            LOGGER.log(quiet ? Level.DEBUG : Level.WARN, "[IncrementalLinChecker] {} surviving states exceed the cap of {}",
+                        states.count(), maxStates);
+            stop(Verdict.UNKNOWN);
+        }
+    }
+
+    private void stop(Verdict v) {
+        verdict = v;
+        window.clear();
+        open.clear();
+        states = null;
+    }
+}
@@ -1,22 +1,35 @@
 package phd.distributed.core;
 
+import java.util.Map;
+
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
 
+import phd.distributed.api.Verdict;
+import phd.distributed.config.SystemConfig;
+import phd.distributed.verifier.SearchBudget;
+
 import clojure.java.api.Clojure;
 import clojure.lang.IFn;
 import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentArrayMap;
 
 public class JitLinChecker {
 
     private static final IFn linFn;
     private static final IFn keywordFn;
+    private static final Keyword KW_I_INV = Keyword.intern(null, "i-inv");
+    private static final Keyword KW_VERDICT = Keyword.intern(null, "verdict");
+    private static final Keyword KW_WITNESS = Keyword.intern(null, "witness");
+    private static final Keyword KW_VIOLATION = Keyword.intern(null, "violation");
 
     static {
         // 1) Cargar el namespace typelin
         Clojure.var("clojure.core", "require").invoke(Clojure.read("typelin"));
 
-        // 2) Obtener la función typelin/linearizable?
-        linFn = Clojure.var("typelin", "linearizable?");
+        // 2) Obtener la función typelin/check ({:verdict .. :witness ..})
+        linFn = Clojure.var("typelin", "check");
         keywordFn = Clojure.var("clojure.core", "keyword");
     }
 
@@ -26,29 +39,90 @@ public class JitLinChecker {
      * @return true if linearizable, false otherwise.
      */
     public static boolean checkLinearizable(IPersistentVector xe, Logger LOGGER, String objectType) {
+        return checkLinearizable(xe, LOGGER, objectType, SystemConfig.PARALLEL_SEARCH_ENABLED);
+    }
+
+    /**
+     * Same as {@link #checkLinearizable(IPersistentVector, Logger, String)}, optionally
+     * running the speculative work-stealing search (jitlin/check-linearizable-parallel).
+     */
+    public static boolean checkLinearizable(IPersistentVector xe, Logger LOGGER, String objectType,
+                                            boolean parallel) {
+        return check(xe, LOGGER, objectType, parallel, SearchBudget.unlimited()) == Verdict.LINEARIZABLE;
+    }
+
+    /**
+     * Tri-state check bounded by the given budget. Returns UNKNOWN if the budget is
+     * exhausted, the calling thread is interrupted or the search fails internally.
+     */
+    public static Verdict check(IPersistentVector xe, Logger LOGGER, String objectType,
+                                boolean parallel, SearchBudget budget) {
+        return checkWithWitness(xe, LOGGER, objectType, parallel, budget).verdict();
+    }
+
+    /**
+     * Like {@link #check}, also returning the linearization found (see {@link CheckResult#witness()}).
+     */
+    public static CheckResult checkWithWitness(IPersistentVector xe, Logger LOGGER, String objectType,
+                                               boolean parallel, SearchBudget budget) {
+        return checkWithWitness(xe, LOGGER, objectType, parallel, budget, false);
+    }
+
+    /**
+     * Like {@link #checkWithWitness(IPersistentVector, Logger, String, boolean, SearchBudget)};
+     * if quiet, the progress and verdict are logged at DEBUG (e.g. for the
+     * probes of a shrink, where only the original check reports the violation).
+     */
+    public static CheckResult checkWithWitness(IPersistentVector xe, Logger LOGGER, String objectType,
+                                               boolean parallel, SearchBudget budget, boolean quiet) {
+        Level info  = quiet ? Level.DEBUG : Level.INFO;
+        Level warn  = quiet ? Level.DEBUG : Level.WARN;
+        Level error = quiet ? Level.DEBUG : Level.ERROR;
 
         // Debug antes de llamar a Clojure
-        LOGGER.info("[JitLinChecker] About to call typelin/linearizable? with {} events against {}",
+        LOGGER.log(info, "[JitLinChecker] About to call typelin/check with {} events against {}",
                     xe.count(), objectType);
 
         Object specType = keywordFn.invoke(objectType); // => :queue
 
         Object ret;
         try {
-            ret = linFn.invoke(specType, xe);
+            Object opts = PersistentArrayMap.createAsIfByAssoc(
+                    new Object[] { keywordFn.invoke("parallel?"), parallel,
+                                   keywordFn.invoke("budget"), budget });
+            ret = linFn.invoke(specType, xe, opts);
         } catch (Throwable t) {
-            LOGGER.error("[JitLinChecker] Error calling typelin/linearizable?", t);
-            return false;
+            budget.cancel();
+            if (t instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("[JitLinChecker] Interrupted after {} nodes", budget.nodes());
+            } else {
+                LOGGER.error("[JitLinChecker] Error calling typelin/check", t);
+            }
+            return CheckResult.of(Verdict.UNKNOWN);
         }
 
-        Boolean result = (ret instanceof Boolean) ? (Boolean) ret : null;
-
-        if (Boolean.TRUE.equals(result)) {
-            LOGGER.info("[JitLinChecker] History *is* LINEARIZABLE with respect to {} ", objectType);
-        } else {
-            LOGGER.error("[JitLinChecker] History is NOT linearizable with respect to {} ", objectType);
+        Map<?, ?> result = (Map<?, ?>) ret;
+        if (result.get(KW_WITNESS) instanceof IPersistentVector ops) {
+            LOGGER.log(info, "[JitLinChecker] History *is* LINEARIZABLE with respect to {} ", objectType);
+            return new CheckResult(Verdict.LINEARIZABLE, invocationPositions(ops));
+        }
+        // A violation proven by one key wins even if another key exhausted the budget
+        if (result.get(KW_VERDICT) != KW_VIOLATION) {
+            LOGGER.log(warn, "[JitLinChecker] Search gave up ({}) after {} nodes in {} ms; verdict UNKNOWN",
+                        budget.reason(), budget.nodes(), budget.elapsed().toMillis());
+            return CheckResult.of(Verdict.UNKNOWN);
         }
+        LOGGER.log(error, "[JitLinChecker] History is NOT linearizable with respect to {} ", objectType);
+        return CheckResult.of(Verdict.NOT_LINEARIZABLE);
+    }
 
-        return Boolean.TRUE.equals(result);
+    private static int[] invocationPositions(IPersistentVector ops) {
+        int[] out = new int[ops.count()];
+        for (int i = 0; i < out.length; i++) {
+            Object pos = ((Map<?, ?>) ops.nth(i)).get(KW_I_INV);
+            out[i] = ((Number) pos).intValue();
+        }
+        return out;
     }
-}
\ No newline at end of file
+}
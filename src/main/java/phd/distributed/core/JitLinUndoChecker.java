@@ -0,0 +1,453 @@
+package phd.distributed.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.ISeq;
+import clojure.lang.Keyword;
+import phd.distributed.api.Verdict;
+import phd.distributed.verifier.Event;
+import phd.distributed.verifier.InvokeEvent;
+import phd.distributed.verifier.JITLinUndoTester;
+import phd.distributed.verifier.ReturnEvent;
+import phd.distributed.verifier.SearchBudget;
+import phd.distributed.verifier.SeqUndoableDeque;
+import phd.distributed.verifier.SeqUndoableMap;
+import phd.distributed.verifier.SeqUndoablePriorityQueue;
+import phd.distributed.verifier.SeqUndoableQueue;
+import phd.distributed.verifier.SeqUndoableSet;
+import phd.distributed.verifier.Solver;
+import phd.distributed.verifier.Undoable;
+
+/**
+ * Pure-Java alternative to {@link JitLinChecker}: converts X_E into
+ * InvokeEvent/ReturnEvent arrays and runs {@link JITLinUndoTester} against
+ * an undoable sequential object, so no Clojure code runs while searching.
+ *
+ * Like jitlin/build-ops, operations without a return are dropped. Arguments
+ * and results are normalized the same way as the Clojure specs in spec.*,
+ * so both checkers accept the same histories for queue, deque, set, map
+ * and priority-queue.
+ * The one deliberate difference is that the queue unwraps single-element
+ * vectors on both sides, where spec.queue only unwraps the result.
+ */
+public class JitLinUndoChecker {
+
+    private static final Keyword KW_TYPE   = Keyword.intern(null, "type");
+    private static final Keyword KW_OP_ID  = Keyword.intern(null, "op-id");
+    private static final Keyword KW_TID    = Keyword.intern(null, "tid");
+    private static final Keyword KW_OP     = Keyword.intern(null, "op");
+    private static final Keyword KW_ARG    = Keyword.intern(null, "arg");
+    private static final Keyword KW_RES    = Keyword.intern(null, "res");
+    private static final Keyword KW_INVOKE = Keyword.intern(null, "invoke");
+    private static final Keyword KW_RETURN = Keyword.intern(null, "return");
+
+    /**
+     * Check if the given history X_E is linearizable w.r.t. the sequential
+     * specification of objectType ("queue", "deque", "set", "map" or "priority-queue").
+     * @param xe Clojure vector of events (output of xe-for-jit)
+     * @return true if linearizable, false otherwise.
+     */
+    public static boolean checkLinearizable(IPersistentVector xe, Logger LOGGER, String objectType) {
+        return check(xe, LOGGER, objectType, SearchBudget.unlimited()) == Verdict.LINEARIZABLE;
+    }
+
+    /**
+     * Tri-state check bounded by the given budget. Returns UNKNOWN if the solver
+     * runs out of budget, is interrupted or fails internally.
+     */
+    public static Verdict check(IPersistentVector xe, Logger LOGGER, String objectType, SearchBudget budget) {
+        return checkWithWitness(xe, LOGGER, objectType, budget).verdict();
+    }
+
+    /**
+     * Like {@link #check}, also returning the linearization found (see {@link CheckResult#witness()}).
+     */
+    public static CheckResult checkWithWitness(IPersistentVector xe, Logger LOGGER, String objectType,
+                                               SearchBudget budget) {
+        return checkWithWitness(xe, LOGGER, objectType, budget, false);
+    }
+
+    /**
+     * Like {@link #checkWithWitness(IPersistentVector, Logger, String, SearchBudget)};
+     * if quiet, the progress and verdict are logged at DEBUG and the solver
+     * does not dump the failing prefix.
+     */
+    public static CheckResult checkWithWitness(IPersistentVector xe, Logger LOGGER, String objectType,
+                                               SearchBudget budget, boolean quiet) {
+        Level info  = quiet ? Level.DEBUG : Level.INFO;
+        Level warn  = quiet ? Level.DEBUG : Level.WARN;
+        Level error = quiet ? Level.DEBUG : Level.ERROR;
+
+        LOGGER.log(info, "[JitLinUndoChecker] About to run JITLinUndoTester with {} events against {}",
+                    xe.count(), objectType);
+
+        Spec<? extends Undoable> spec = specFor(objectType);
+        if (spec == null) {
+            LOGGER.error("[JitLinUndoChecker] Unknown object type: {}", objectType);
+            return CheckResult.of(Verdict.UNKNOWN);
+        }
+
+        Solved solved;
+        try {
+            solved = solve(xe, spec, budget, !quiet);
+        } catch (Throwable t) {
+            LOGGER.error("[JitLinUndoChecker] Error running JITLinUndoTester", t);
+            return CheckResult.of(Verdict.UNKNOWN);
+        }
+
+        int result = solved.code();
+        if (result == Solver.Success) {
+            LOGGER.log(info, "[JitLinUndoChecker] History *is* LINEARIZABLE with respect to {} ", objectType);
+            return new CheckResult(Verdict.LINEARIZABLE, invocationPositions(xe, solved.threads()));
+        }
+        if (result == Solver.Interrupted || result == Solver.OutOfSteam) {
+            LOGGER.log(warn, "[JitLinUndoChecker] Search gave up ({}) after {} nodes in {} ms; verdict UNKNOWN",
+                        budget.reason(), budget.nodes(), budget.elapsed().toMillis());
+            return CheckResult.of(Verdict.UNKNOWN);
+        }
+        LOGGER.log(error, "[JitLinUndoChecker] History is NOT linearizable with respect to {} (solver code {})",
+                     objectType, result);
+        return CheckResult.of(Verdict.NOT_LINEARIZABLE);
+    }
+
+    private record Solved(int code, int[] threads) { }
+
+    private static <S extends Undoable> Solved solve(IPersistentVector xe, Spec<S> spec, SearchBudget budget,
+                                                     boolean reportFailure) {
+        List<Event> events = toEvents(xe, spec);
+        if (events == null) {
+            // A completed operation the spec does not know can never be linearized
+            return new Solved(Solver.Failure, null);
+        }
+        int p = 0;
+        for (Event e : events) {
+            if (e instanceof ReturnEvent re) p = Math.max(p, re.t + 1);
+        }
+        JITLinUndoTester<S> tester = new JITLinUndoTester<>(spec.newObject(), Math.max(p, 1), 0L, false);
+        tester.setBudget(budget);
+        tester.setReportFailure(reportFailure);
+        int code = tester.solve(events.toArray(new Event[0]));
+        return new Solved(code, tester.linearizationThreads());
+    }
+
+    /**
+     * Maps the tester's thread sequence back to X_E invocation positions: the
+     * k-th operation linearized for thread t is t's k-th completed invocation.
+     */
+    private static int[] invocationPositions(IPersistentVector xe, int[] threads) {
+        Set<Object> completed = completedOpIds(xe);
+        Map<Integer, List<Integer>> byThread = new HashMap<>();
+        int pos = 0;
+        for (ISeq s = xe.seq(); s != null; s = s.next(), pos++) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            if (KW_INVOKE.equals(ev.get(KW_TYPE)) && completed.contains(ev.get(KW_OP_ID))) {
+                int tid = ((Number) ev.get(KW_TID)).intValue();
+                byThread.computeIfAbsent(tid, k -> new ArrayList<>()).add(pos);
+            }
+        }
+        int[] out = new int[threads.length];
+        Map<Integer, Integer> cursor = new HashMap<>();
+        for (int i = 0; i < threads.length; i++) {
+            int k = cursor.merge(threads[i], 1, Integer::sum) - 1;
+            out[i] = byThread.get(threads[i]).get(k);
+        }
+        return out;
+    }
+
+    private static Set<Object> completedOpIds(IPersistentVector xe) {
+        Set<Object> completed = new HashSet<>();
+        for (ISeq s = xe.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            if (KW_RETURN.equals(ev.get(KW_TYPE))) {
+                completed.add(ev.get(KW_OP_ID));
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Converts X_E into tester events, keeping only completed operations.
+     * Returns null if a completed operation is not supported by the spec.
+     */
+    static <S extends Undoable> List<Event> toEvents(IPersistentVector xe, Spec<S> spec) {
+        Set<Object> completed = completedOpIds(xe);
+
+        record Open<S>(InvokeEvent<S> inv, String op) { }
+
+        Map<Object, Open<S>> open = new HashMap<>();
+        List<Event> events = new ArrayList<>(2 * completed.size());
+        for (ISeq s = xe.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            Object type = ev.get(KW_TYPE);
+            Object opId = ev.get(KW_OP_ID);
+            if (!completed.contains(opId)) {
+                continue;
+            }
+            int tid = ((Number) ev.get(KW_TID)).intValue();
+
+            if (KW_INVOKE.equals(type)) {
+                String op = opName(ev.get(KW_OP));
+                Object arg = ev.get(KW_ARG);
+                Function<S, Object> f = spec.op(op, arg);
+                if (f == null) {
+                    return null;
+                }
+                InvokeEvent<S> inv = new InvokeEvent<>(tid, op + "(" + arg + ")", f);
+                open.put(opId, new Open<>(inv, op));
+                events.add(inv);
+            } else if (KW_RETURN.equals(type)) {
+                Open<S> o = open.remove(opId);
+                if (o == null) {
+                    // Return without a preceding invoke: nothing to linearize it against
+                    return null;
+                }
+                ReturnEvent ret = new ReturnEvent(tid, spec.expected(o.op(), ev.get(KW_RES)));
+                o.inv().setReturnEvent(ret);
+                events.add(ret);
+            }
+        }
+        return events;
+    }
+
+    private static String opName(Object op) {
+        return (op instanceof Keyword k) ? k.getName() : String.valueOf(op);
+    }
+
+    // ============================================================
+    //  Sequential specifications (Java counterparts of spec.*)
+    // ============================================================
+
+    abstract static class Spec<S extends Undoable> {
+        abstract S newObject();
+
+        /** Sequential operation for op(arg), or null if unsupported. */
+        abstract Function<S, Object> op(String op, Object arg);
+
+        /** Observed result, normalized into the domain returned by op. */
+        abstract Object expected(String op, Object res);
+    }
+
+    static Spec<? extends Undoable> specFor(String objectType) {
+        if (objectType == null) return null;
+        return switch (objectType.trim().toLowerCase(Locale.ROOT)) {
+            case "queue" -> QUEUE;
+            case "deque" -> DEQUE;
+            case "set"   -> SET;
+            case "map"   -> MAP;
+            case "priority-queue" -> PRIORITY_QUEUE;
+            default      -> null;
+        };
+    }
+
+    private static final Spec<SeqUndoableQueue> QUEUE = new Spec<>() {
+        @Override SeqUndoableQueue newObject() { return new SeqUndoableQueue(); }
+
+        @Override Function<SeqUndoableQueue, Object> op(String op, Object arg) {
+            switch (op) {
+                case "enqueue", "offer", "add" -> {
+                    Object x = unwrap(arg);
+                    return q -> { q.enqueue(x); return Boolean.TRUE; };
+                }
+                case "dequeue", "poll", "remove" -> {
+                    return SeqUndoableQueue::dequeue;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        @Override Object expected(String op, Object res) {
+            return switch (op) {
+                case "dequeue", "poll", "remove" -> unwrap(normalizeNil(res));
+                default -> normalizeBool(res);
+            };
+        }
+    };
+
+    private static final Spec<SeqUndoablePriorityQueue> PRIORITY_QUEUE = new Spec<>() {
+        @Override SeqUndoablePriorityQueue newObject() { return new SeqUndoablePriorityQueue(); }
+
+        @Override Function<SeqUndoablePriorityQueue, Object> op(String op, Object arg) {
+            switch (op) {
+                case "enqueue", "offer", "add" -> {
+                    return q -> { q.enqueue(arg); return Boolean.TRUE; };
+                }
+                case "dequeue", "poll", "remove" -> {
+                    return SeqUndoablePriorityQueue::dequeue;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        @Override Object expected(String op, Object res) {
+            return switch (op) {
+                case "dequeue", "poll", "remove" -> normalizeNil(res);
+                default -> normalizeBool(res);
+            };
+        }
+    };
+
+    private static final Spec<SeqUndoableDeque> DEQUE = new Spec<>() {
+        @Override SeqUndoableDeque newObject() { return new SeqUndoableDeque(); }
+
+        @Override Function<SeqUndoableDeque, Object> op(String op, Object arg) {
+            switch (op) {
+                case "offerFirst" -> {
+                    return d -> { d.offerFirst(arg); return Boolean.TRUE; };
+                }
+                case "enqueue", "offer", "add", "offerLast" -> {
+                    return d -> { d.offerLast(arg); return Boolean.TRUE; };
+                }
+                case "dequeue", "poll", "remove", "pollFirst" -> {
+                    return SeqUndoableDeque::pollFirst;
+                }
+                case "pollLast" -> {
+                    return SeqUndoableDeque::pollLast;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        @Override Object expected(String op, Object res) {
+            return switch (op) {
+                case "dequeue", "poll", "remove", "pollFirst", "pollLast" -> normalizeNil(res);
+                default -> normalizeBool(res);
+            };
+        }
+    };
+
+    private static final Spec<SeqUndoableSet> SET = new Spec<>() {
+        @Override SeqUndoableSet newObject() { return new SeqUndoableSet(); }
+
+        @Override Function<SeqUndoableSet, Object> op(String op, Object arg) {
+            return switch (op) {
+                case "add"      -> s -> s.add(arg);
+                case "remove"   -> s -> s.remove(arg);
+                case "contains" -> s -> s.contains(arg);
+                default         -> null;
+            };
+        }
+
+        @Override Object expected(String op, Object res) {
+            // spec.set/normalize-bool: nil-like results count as false
+            Object b = normalizeBool(normalizeNil(res));
+            return (b == null) ? Boolean.FALSE : b;
+        }
+    };
+
+    private static final Spec<SeqUndoableMap> MAP = new Spec<>() {
+        @Override SeqUndoableMap newObject() { return new SeqUndoableMap(); }
+
+        @Override Function<SeqUndoableMap, Object> op(String op, Object arg) {
+            switch (op) {
+                case "put" -> {
+                    Object[] kv = normalizeKvArg(arg);
+                    return m -> m.put(kv[0], kv[1]);
+                }
+                case "get" -> {
+                    Object k = normalizeKey(arg);
+                    return m -> m.get(k);
+                }
+                case "remove" -> {
+                    Object k = normalizeKey(arg);
+                    return m -> m.remove(k);
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        @Override Object expected(String op, Object res) {
+            return normalizeVal(res);
+        }
+    };
+
+    // ============================================================
+    //  Normalizations (same rules as spec.queue / spec.map)
+    // ============================================================
+
+    private static boolean isNullLike(String s) {
+        String t = s.trim().toLowerCase(Locale.ROOT);
+        return t.equals("nil") || t.equals("null");
+    }
+
+    /** spec.queue/normalize-nil */
+    static Object normalizeNil(Object v) {
+        if (v instanceof String s && isNullLike(s)) return null;
+        if (v instanceof Keyword k && isNullLike(k.getName())) return null;
+        return v;
+    }
+
+    /** spec.queue/normalize-bool */
+    static Object normalizeBool(Object v) {
+        String s = (v instanceof String str) ? str : (v instanceof Keyword k) ? k.getName() : null;
+        if (s != null) {
+            String t = s.trim().toLowerCase(Locale.ROOT);
+            if (t.equals("true"))  return Boolean.TRUE;
+            if (t.equals("false")) return Boolean.FALSE;
+        }
+        return v;
+    }
+
+    /** Accepts 3 and [3] alike, as spec.queue/queue-step does for results. */
+    private static Object unwrap(Object v) {
+        if (v instanceof List<?> l && l.size() == 1) return l.get(0);
+        return v;
+    }
+
+    /** spec.map/normalize-key */
+    static Object normalizeKey(Object k) {
+        if (k instanceof String s) return s.trim();
+        if (k instanceof Keyword kw) return kw.getName();
+        return k;
+    }
+
+    /** spec.map/normalize-val */
+    static Object normalizeVal(Object v) {
+        if (v instanceof String s) {
+            String t = s.trim();
+            return isNullLike(t) ? null : t;
+        }
+        if (v instanceof Keyword kw) {
+            return isNullLike(kw.getName()) ? null : kw.getName();
+        }
+        return v;
+    }
+
+    /** spec.map/normalize-kv-arg, including the "[k, v]" string form. */
+    static Object[] normalizeKvArg(Object arg) {
+        if (arg instanceof List<?> l && l.size() == 2) {
+            return new Object[] {normalizeKey(l.get(0)), normalizeVal(l.get(1))};
+        }
+        if (arg instanceof String s) {
+            String t = s.trim();
+            if (t.startsWith("[") && t.endsWith("]")) {
+                t = t.substring(1, t.length() - 1);
+            }
+            int comma = t.indexOf(',');
+            if (comma >= 0) {
+                return new Object[] {normalizeKey(t.substring(0, comma).trim()),
+                                     normalizeVal(t.substring(comma + 1).trim())};
+            }
+            return new Object[] {normalizeKey(t), null};
+        }
+        return new Object[] {normalizeKey(arg), null};
+    }
+}
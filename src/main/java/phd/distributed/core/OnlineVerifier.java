@@ -0,0 +1,103 @@
+package phd.distributed.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import clojure.lang.IPersistentCollection;
+import clojure.lang.IPersistentVector;
+import phd.distributed.api.Verdict;
+import phd.distributed.snapshot.XeStream;
+
+/**
+ * Verifies a history while it is being produced.
+ *
+ * A daemon thread polls the {@link XeStream} of the snapshot and feeds the
+ * safe prefix of X_E to an {@link IncrementalLinChecker}, so every quiescent
+ * window is checked while the producers are still running. Once they have
+ * terminated, {@link #finish()} drains the tail and checks the last window;
+ * its latency is one window instead of the whole history.
+ *
+ * A violation or an UNKNOWN verdict is final, after which the thread stops
+ * consuming and the producers run to completion unobserved.
+ */
+public final class OnlineVerifier {
+
+    private static final Logger LOGGER = LogManager.getLogger(OnlineVerifier.class);
+
+    /** Back-off between polls that found nothing new. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final XeStream stream;
+    private final IncrementalLinChecker checker;
+    private final Thread thread;
+    private volatile boolean producersDone;
+    private volatile Throwable failure;
+
+    public OnlineVerifier(XeStream stream, IncrementalLinChecker checker) {
+        this.stream = stream;
+        this.checker = checker;
+        this.thread = new Thread(this::consume, "online-verifier");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Signals that every producer has terminated, waits for the consumer to
+     * drain the log and returns the verdict of the whole history.
+     */
+    public Verdict finish() {
+        producersDone = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Verdict.UNKNOWN;
+        }
+        if (failure != null) {
+            LOGGER.error("[OnlineVerifier] Consumer failed", failure);
+            return Verdict.UNKNOWN;
+        }
+        return checker.finish();
+    }
+
+    /** The failing window of a NOT_LINEARIZABLE verdict (see IncrementalLinChecker#failedWindow). */
+    public IPersistentVector failedWindow() {
+        return checker.failedWindow();
+    }
+
+    /** The states the failing window was checked from (see IncrementalLinChecker#failedStates). */
+    public IPersistentCollection failedStates() {
+        return checker.failedStates();
+    }
+
+    /** Number of X_E events consumed so far. */
+    public long consumed() {
+        return stream.emitted();
+    }
+
+    private void consume() {
+        try {
+            while (checker.verdict() == Verdict.LINEARIZABLE) {
+                // Read the flag before polling: a poll that starts after the
+                // producers terminated sees every event
+                boolean last = producersDone;
+                int n = stream.poll(checker::accept);
+                if (last) {
+                    break;
+                }
+                if (n == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package phd.distributed.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import phd.distributed.config.SystemConfig;
+
+/**
+ * Long-lived pool of producer threads, reused by every run in the JVM.
+ *
+ * Creating and tearing down a fixed pool per run made benchmark loops pay
+ * thread start-up thousands of times, with producers starting on cold JIT
+ * state. Here the threads are created once (daemon, prestarted) and each
+ * run is a session: its producers are submitted, wait on a start gate until
+ * all of them are running, and are released together, so the measured
+ * interval does not include thread hand-off skew.
+ *
+ * Sessions are exclusive (one at a time per runtime), which guarantees the
+ * start gate can always fill. The pool grows when a session needs more
+ * threads than it has and never shrinks.
+ *
+ * {@link #runVirtual} runs the same kind of session on one virtual thread
+ * per producer, for logical process counts far above the core count.
+ * Virtual threads are cheap to create and must not be pooled, so those
+ * sessions use a fresh per-task executor.
+ */
+public final class ProducerRuntime {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProducerRuntime.class);
+
+    /** Extra wait after cancelling a session that ran past its timeout. */
+    private static final long CANCEL_GRACE_SECONDS = 30;
+
+    private static ProducerRuntime shared;
+
+    /** Body of one producer of a session; pid is in [0, parties). */
+    @FunctionalInterface
+    public interface Producer {
+        void run(int pid) throws Exception;
+    }
+
+    private final ReentrantLock sessionLock = new ReentrantLock();
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private ThreadPoolExecutor pool;
+
+    /** @param threads initial number of producer threads */
+    public ProducerRuntime(int threads) {
+        this.pool = newPool(Math.max(1, threads));
+    }
+
+    /** Runtime shared by all Executioners (producer.pool.size threads initially). */
+    public static synchronized ProducerRuntime shared() {
+        if (shared == null) {
+            shared = new ProducerRuntime(SystemConfig.PRODUCER_POOL_SIZE);
+        }
+        return shared;
+    }
+
+    private ThreadPoolExecutor newPool(int threads) {
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "producer-" + threadIds.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor p = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                                      new LinkedBlockingQueue<>(), factory);
+        p.prestartAllCoreThreads();
+        return p;
+    }
+
+    /** Current number of producer threads. */
+    public int size() {
+        sessionLock.lock();
+        try {
+            return pool.getCorePoolSize();
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int parties) {
+        if (pool.isShutdown()) {
+            pool = newPool(parties);
+        } else if (pool.getCorePoolSize() < parties) {
+            LOGGER.debug("Growing producer pool from {} to {} threads", pool.getCorePoolSize(), parties);
+            pool.setMaximumPoolSize(parties);
+            pool.setCorePoolSize(parties);
+            pool.prestartAllCoreThreads();
+        }
+    }
+
+    /**
+     * Runs one session: parties producers, released together once all of
+     * them are running, and waits for them up to timeout. Producers still
+     * running after the timeout are interrupted; if they ignore it, the pool
+     * is abandoned and the next session starts a new one.
+     *
+     * @return failure of each producer by pid (null entries for success)
+     */
+    public Throwable[] run(int parties, Producer body, long timeout, TimeUnit unit) {
+        Throwable[] failures = new Throwable[parties];
+        if (parties <= 0) {
+            return failures;
+        }
+        sessionLock.lock();
+        try {
+            ensureCapacity(parties);
+            if (!session(pool, parties, body, failures, timeout, unit)) {
+                LOGGER.error("Producers ignored the cancellation; abandoning the producer pool.");
+                pool.shutdownNow();
+            }
+            return failures;
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    /**
+     * Runs one session like {@link #run} with every producer on its own
+     * virtual thread. Producers that ignore the timeout interrupt are left
+     * behind.
+     */
+    public static Throwable[] runVirtual(int parties, Producer body, long timeout, TimeUnit unit) {
+        Throwable[] failures = new Throwable[parties];
+        if (parties <= 0) {
+            return failures;
+        }
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            if (!session(executor, parties, body, failures, timeout, unit)) {
+                LOGGER.error("Virtual producers ignored the cancellation; leaving them behind.");
+            }
+            return failures;
+        } finally {
+            // Every producer has finished or been cancelled; do not wait for stragglers
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the producers of a session to executor, opens the start gate
+     * once all of them run and waits for them. If the caller is interrupted
+     * the producers are cancelled as on a timeout, and the caller waits for
+     * them up to the grace period before its interrupt status is restored.
+     *
+     * @return false if some producer was still running after the timeout
+     *         (or interrupt) and the cancellation grace period
+     */
+    private static boolean session(ExecutorService executor, int parties, Producer body,
+                                   Throwable[] failures, long timeout, TimeUnit unit) {
+        CountDownLatch ready = new CountDownLatch(parties);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done  = new CountDownLatch(parties);
+        // claimed[pid] = 1 once producer pid runs, or once a cancelled session
+        // gave up on it before it started; whoever claims it counts down done
+        AtomicIntegerArray claimed = new AtomicIntegerArray(parties);
+        Future<?>[] futures = new Future<?>[parties];
+
+        for (int pid = 0; pid < parties; pid++) {
+            final int id = pid;
+            futures[pid] = executor.submit(() -> {
+                if (!claimed.compareAndSet(id, 0, 1)) {
+                    return;
+                }
+                try {
+                    ready.countDown();
+                    start.await();
+                    body.run(id);
+                } catch (Throwable t) {
+                    failures[id] = t;
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            ready.await();
+            start.countDown();
+            if (!done.await(timeout, unit)) {
+                LOGGER.warn("Producers did not finish within {} {}; interrupting them. "
+                          + "Benchmark measurements for this run may be incomplete.",
+                          timeout, unit.name().toLowerCase());
+                cancel(futures);
+                return done.await(CANCEL_GRACE_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            // Producers still queued will never run once cancelled
+            for (int pid = 0; pid < parties; pid++) {
+                if (claimed.compareAndSet(pid, 0, 1)) {
+                    done.countDown();
+                }
+            }
+            cancel(futures);
+            start.countDown();
+            try {
+                // Do not hand back the log while producers may still append to it
+                return done.await(CANCEL_GRACE_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException again) {
+                return false;
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    private static void cancel(Future<?>[] futures) {
+        for (Future<?> f : futures) {
+            f.cancel(true);
+        }
+    }
+
+    /** Stops the threads of a runtime that is no longer needed. */
+    public void close() {
+        sessionLock.lock();
+        try {
+            pool.shutdown();
+            if (!pool.awaitTermination(CANCEL_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+}
@@ -1,16 +1,43 @@
 package phd.distributed.core;
 
+import java.time.Duration;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import clojure.lang.IPersistentCollection;
 import clojure.lang.IPersistentVector;
 import clojure.lang.ISeq;
+import phd.distributed.api.Verdict;
+import phd.distributed.config.SystemConfig;
+import phd.distributed.snapshot.CollectFAInc;
 import phd.distributed.snapshot.Snapshot;
+import phd.distributed.verifier.SearchBudget;
 
 public class Verifier {
 
     private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Clojure DFS in typelin/linearizable? (default). */
+    public static final String CHECKER_TYPELIN = "typelin";
+    /** Pure-Java JITLinUndoTester over undoable sequential objects. */
+    public static final String CHECKER_UNDO = "undo";
+    /** typelin over quiescent windows, see {@link IncrementalLinChecker} (no witness). */
+    public static final String CHECKER_INCREMENTAL = "incremental";
+
     private final Snapshot c;
+    private String checker = CHECKER_TYPELIN;
+    private boolean parallelSearch = SystemConfig.PARALLEL_SEARCH_ENABLED;
+    private long maxSearchNodes = SystemConfig.SEARCH_MAX_NODES;
+    private Duration searchTimeout = null;
+    private Verdict lastVerdict = null;
+    private SearchBudget lastBudget = null;
+    private int[] lastWitness = null;
+    private IPersistentVector lastXe = null;
+    private IPersistentCollection lastStates = null;
+    private String lastObjectType = null;
+    private OnlineVerifier online = null;
+    private boolean onlineRetainHistory = SystemConfig.ONLINE_RETAIN_HISTORY;
 
     public Verifier(Snapshot snapshot) {
         this.c = snapshot;
@@ -21,6 +48,217 @@ public class Verifier {
     }
 
 
+    /**
+     * Selects the linearizability checker: "typelin", "undo" or "incremental"
+     * (case-insensitive). Unknown values fall back to typelin.
+     */
+    public void setChecker(String checker) {
+        String s = (checker == null) ? CHECKER_TYPELIN : checker.trim().toLowerCase();
+        if (!s.equals(CHECKER_TYPELIN) && !s.equals(CHECKER_UNDO) && !s.equals(CHECKER_INCREMENTAL)) {
+            LOGGER.warn("Unknown checker '{}', falling back to {}", checker, CHECKER_TYPELIN);
+            s = CHECKER_TYPELIN;
+        }
+        this.checker = s;
+    }
+
+    public String getChecker() {
+        return checker;
+    }
+
+    /**
+     * Enables the parallel speculative search of the typelin checker.
+     * The undo checker always searches sequentially.
+     */
+    public void setParallelSearch(boolean parallelSearch) {
+        this.parallelSearch = parallelSearch;
+    }
+
+    public boolean isParallelSearch() {
+        return parallelSearch;
+    }
+
+    /**
+     * Bounds every following check: at most maxNodes search nodes (&lt;= 0 for no
+     * limit) and at most timeout of wall-clock time (null for none). A check that
+     * hits either bound, or whose thread is interrupted, yields {@link Verdict#UNKNOWN}.
+     */
+    public void setSearchBudget(long maxNodes, Duration timeout) {
+        this.maxSearchNodes = maxNodes;
+        this.searchTimeout = timeout;
+    }
+
+    /**
+     * Whether an online check keeps every event in the snapshot (default:
+     * verifier.online.retain.history). Off, the events it has consumed are
+     * freed, so memory stays bounded by the current window however long the
+     * run; the snapshot's buildXE() is then unavailable after the run and a
+     * violation is shrunk within its failing window only, from the states
+     * the earlier windows left. Must be set before {@link #startOnline(String)}.
+     */
+    public void setOnlineRetainHistory(boolean onlineRetainHistory) {
+        this.onlineRetainHistory = onlineRetainHistory;
+    }
+
+    /** Verdict of the last check, or null if nothing was checked yet. */
+    public Verdict getLastVerdict() {
+        return lastVerdict;
+    }
+
+    /** Budget consumed by the last check (nodes, elapsed time, stop reason). */
+    public SearchBudget getLastBudget() {
+        return lastBudget;
+    }
+
+    /**
+     * Linearization found by the last check: X_E positions of the invocations
+     * in linearization order, or null unless the verdict was LINEARIZABLE.
+     */
+    public int[] getLastWitness() {
+        return lastWitness;
+    }
+
+    /**
+     * Minimizes the last history checked, if it was NOT_LINEARIZABLE, with
+     * {@link HistoryShrinker} and the selected checker. Every shrink step
+     * draws on one search budget: the node limit of the original check and
+     * the timeout of setSearchBudget(...). A failing window kept by an online
+     * check that did not retain the history is shrunk with the incremental
+     * checker from the states it was checked from, whatever checker is
+     * selected, so the core is a violation relative to those states.
+     *
+     * @return a small non-linearizable sub-history of X_E, or null
+     */
+    public IPersistentVector shrinkLastViolation(int maxChecks) {
+        return shrinkLastViolation(maxChecks, searchTimeout);
+    }
+
+    /**
+     * Like {@link #shrinkLastViolation(int)}, with the whole shrink bounded by
+     * timeout (null for none). Once the budget is spent the remaining steps
+     * report UNKNOWN, so the shrink stops at the smallest violation proven so far.
+     */
+    public IPersistentVector shrinkLastViolation(int maxChecks, Duration timeout) {
+        if (lastVerdict != Verdict.NOT_LINEARIZABLE || lastXe == null) {
+            return null;
+        }
+        String objectType = lastObjectType;
+        IPersistentCollection states = lastStates;
+        SearchBudget budget = new SearchBudget(maxSearchNodes, timeout);
+        // A spent budget answers UNKNOWN without rebuilding the candidate's search;
+        // probes log at DEBUG, only the original check reports the violation
+        HistoryShrinker shrinker = new HistoryShrinker(
+                sub -> budget.isExhausted()
+                    ? Verdict.UNKNOWN
+                    : (states == null)
+                        ? run(sub, objectType, true, budget).verdict()
+                        : runFrom(states, sub, objectType, budget),
+                maxChecks);
+        IPersistentVector core = shrinker.shrink(lastXe);
+        LOGGER.info("Shrunk violation to {} of {} events ({} checks, {} cache hits, budget {})",
+                    (core == null) ? 0 : core.count(), lastXe.count(), shrinker.checks(), shrinker.cacheHits(),
+                    budget.reason());
+        return core;
+    }
+
+    /**
+     * Starts checking the history while the producers write it, with an
+     * {@link OnlineVerifier} over the incremental checker whatever checker is
+     * selected. The search budget is taken now, so its deadline covers the
+     * production phase too. Must be called before the producers start, and
+     * only once until {@link #finishOnline()} completes the check.
+     *
+     * @return false if the snapshot has no online order (only the GAIsnap
+     *         family has one); the history is then checked in batch as usual
+     * @throws IllegalStateException if an online check is already running
+     */
+    public boolean startOnline(String objectType) {
+        if (online != null) {
+            // Replacing it would leak its consumer thread
+            throw new IllegalStateException(
+                "An online check is already running; finish it before starting another producer run");
+        }
+        if (!(c instanceof CollectFAInc)) {
+            LOGGER.warn("Online verification needs a GAIsnap snapshot, not {}; checking in batch",
+                        (c == null) ? null : c.getClass().getSimpleName());
+            return false;
+        }
+        SearchBudget budget = new SearchBudget(maxSearchNodes, searchTimeout);
+        this.lastBudget = budget;
+        this.lastObjectType = objectType;
+        this.online = new OnlineVerifier(((CollectFAInc) c).openStream(!onlineRetainHistory),
+            new IncrementalLinChecker(objectType, SystemConfig.INCREMENTAL_MAX_STATES, budget));
+        online.start();
+        return true;
+    }
+
+    public boolean isOnline() {
+        return online != null;
+    }
+
+    /**
+     * Completes the check started by {@link #startOnline(String)}; call it
+     * once every producer has terminated. Like the incremental checker it
+     * yields no witness. A violation is kept for shrinking: the whole X_E if
+     * the history was retained, otherwise the failing window together with
+     * the surviving states it was checked from. {@link #shrinkLastViolation}
+     * re-checks the window from those states, never from the initial one,
+     * which could blame correct operations that consume what earlier
+     * windows left behind. If those states are missing nothing is shrunk.
+     */
+    public boolean finishOnline() {
+        Verdict verdict = online.finish();
+        LOGGER.info("Online verification consumed {} events: {}", online.consumed(), verdict);
+        this.lastVerdict = verdict;
+        this.lastWitness = null;
+        this.lastXe = null;
+        this.lastStates = null;
+        if (verdict == Verdict.NOT_LINEARIZABLE) {
+            if (onlineRetainHistory) {
+                this.lastXe = c.buildXE();
+            } else if (online.failedStates() != null) {
+                this.lastXe = online.failedWindow();
+                this.lastStates = online.failedStates();
+            }
+        }
+        this.online = null;
+        return verdict == Verdict.LINEARIZABLE;
+    }
+
+    private CheckResult run(IPersistentVector xe, String objectType, boolean quiet, SearchBudget budget) {
+        if (CHECKER_UNDO.equals(checker)) {
+            return JitLinUndoChecker.checkWithWitness(xe, LOGGER, objectType, budget, quiet);
+        }
+        if (CHECKER_INCREMENTAL.equals(checker)) {
+            IncrementalLinChecker inc =
+                new IncrementalLinChecker(objectType, SystemConfig.INCREMENTAL_MAX_STATES, budget);
+            inc.setQuiet(quiet);
+            inc.acceptAll(xe);
+            return CheckResult.of(inc.finish());
+        }
+        return JitLinChecker.checkWithWitness(xe, LOGGER, objectType, parallelSearch, budget, quiet);
+    }
+
+    private static Verdict runFrom(IPersistentCollection states, IPersistentVector xe, String objectType,
+                                   SearchBudget budget) {
+        IncrementalLinChecker inc =
+            new IncrementalLinChecker(objectType, SystemConfig.INCREMENTAL_MAX_STATES, budget, states);
+        inc.setQuiet(true);
+        inc.acceptAll(xe);
+        return inc.finish();
+    }
+
+    private boolean check(IPersistentVector xe, String objectType) {
+        SearchBudget budget = new SearchBudget(maxSearchNodes, searchTimeout);
+        CheckResult result = run(xe, objectType, false, budget);
+        this.lastBudget = budget;
+        this.lastXe = xe;
+        this.lastStates = null;
+        this.lastObjectType = objectType;
+        this.lastVerdict = result.verdict();
+        this.lastWitness = result.witness();
+        return result.verdict() == Verdict.LINEARIZABLE;
+    }
+
     public boolean checkLinearizabilityJitLin(String objectType) {
 
 
@@ -36,10 +274,12 @@ public class Verifier {
             }
         }
 
-        boolean ok = JitLinChecker.checkLinearizable(xe, LOGGER,objectType);
+        boolean ok = check(xe, objectType);
 
         if (ok) {
             LOGGER.info("\n History is LINEARIZABLE (JitLin checker).");
+        } else if (lastVerdict == Verdict.UNKNOWN) {
+            LOGGER.warn("\n History could NOT be decided (JitLin checker gave up).");
         } else {
             LOGGER.error("\n History is NOT linearizable (JitLin checker).");
         }
@@ -62,11 +302,13 @@ public class Verifier {
             }
         }
 
-        // Llamada directa al motor de Clojure
-        boolean ok = JitLinChecker.checkLinearizable(xe, LOGGER, objectType);
+        // Llamada directa al checker seleccionado (typelin por defecto)
+        boolean ok = check(xe, objectType);
 
         if (ok) {
             LOGGER.info("\n History is LINEARIZABLE (JitLin checker).");
+        } else if (lastVerdict == Verdict.UNKNOWN) {
+            LOGGER.warn("\n History could NOT be decided (JitLin checker gave up).");
         } else {
             LOGGER.error("\n History is NOT linearizable (JitLin checker).");
         }
@@ -1,25 +1,142 @@
 package phd.distributed.datamodel;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import clojure.lang.Keyword;
 
 public class MethodInf {
+
+    /** Non-throwing counterpart of zero-argument methods that throw when empty. */
+    private static final Map<String, String> NON_THROWING = Map.of(
+        "remove", "poll", "pop", "poll", "element", "peek",
+        "removeFirst", "pollFirst", "removeLast", "pollLast",
+        "getFirst", "peekFirst", "getLast", "peekLast");
+
+    /**
+     * Methods that may fail or block on an empty collection: every method of
+     * NON_THROWING, both sides, so the two tables cannot drift, plus these.
+     */
+    private static final Set<String> STATE_DEPENDENT = Stream.of(
+            NON_THROWING.keySet().stream(),
+            NON_THROWING.values().stream(),
+            Stream.of("get", "charAt"))
+        .flatMap(s -> s)
+        .collect(Collectors.toUnmodifiableSet());
+
     private Method method;
     private String name;
     private final List<Type> typeParam;
     private final Type typeReturn;
+    // Resolved once here so the snapshot write path never hits Keyword.intern
+    private final Keyword keyword;
+    private final Class<?>[] parameterTypes;
+    private final int arity;
+    private final boolean stateDependent;
+    // Erased to (Object, Object x arity) -> Object so every call site can use
+    // invokeExact; null if the method is not publicly accessible, in which
+    // case invoke() falls back to reflection.
+    private final MethodHandle handle;
+    private final MethodHandle spreader;
+    private final MethodInf nonThrowing;
 
     public MethodInf(Method method) {
+        this(method, null);
+    }
+
+    /**
+     * @param owner class of the object under test, used to resolve the
+     *              non-throwing counterpart of this method (may be null)
+     */
+    public MethodInf(Method method, Class<?> owner) {
         this.name = method.getName();
         this.method = method;
         this.typeParam = Arrays.asList(method.getGenericParameterTypes());
         this.typeReturn = method.getGenericReturnType();
+        this.keyword = Keyword.intern(null, this.name);
+        this.parameterTypes = method.getParameterTypes();
+        this.arity = parameterTypes.length;
+        this.stateDependent = STATE_DEPENDENT.contains(this.name);
+
+        MethodHandle h = null;
+        try {
+            h = MethodHandles.publicLookup().unreflect(method)
+                             .asType(MethodType.genericMethodType(arity + 1));
+        } catch (IllegalAccessException e) {
+            // e.g. a public method declared in a non-public class
+        }
+        this.handle = h;
+        this.spreader = (h == null) ? null : h.asSpreader(Object[].class, arity);
+        this.nonThrowing = resolveNonThrowing(owner);
+    }
+
+    private MethodInf resolveNonThrowing(Class<?> owner) {
+        String alt = NON_THROWING.get(name);
+        if (owner == null || alt == null || arity != 0) {
+            return null;
+        }
+        try {
+            return new MethodInf(owner.getMethod(alt));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Non-throwing counterpart of this method on the owner class (poll for
+     * remove(), peek for element(), ...), or null if there is none.
+     */
+    public MethodInf getNonThrowing() {
+        return nonThrowing;
     }
 
+    /** Parameter types, computed once (do not modify the returned array). */
     public Class<?>[] getParameterTypes() {
-    return method.getParameterTypes();
-}
+        return parameterTypes;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    /** True for methods that may fail on an empty collection (poll, remove, peek, ...). */
+    public boolean isStateDependent() {
+        return stateDependent;
+    }
+
+    /**
+     * Invokes the method on target through the precompiled handle, with a
+     * call site specialized for 0, 1 and 2 arguments. args.length must match
+     * the arity. Exceptions thrown by the method propagate unwrapped.
+     */
+    public Object invoke(Object target, Object... args) throws Throwable {
+        if (handle == null) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        switch (arity) {
+            case 0:
+                return (Object) handle.invokeExact(target);
+            case 1:
+                return (Object) handle.invokeExact(target, args[0]);
+            case 2:
+                return (Object) handle.invokeExact(target, args[0], args[1]);
+            default:
+                return (Object) spreader.invokeExact(target, args);
+        }
+    }
 
     public String getName() {
         return name;
@@ -29,6 +146,11 @@ public class MethodInf {
         return method;
     }
 
+    /** Clojure keyword for the method name, e.g. :offer. */
+    public Keyword getKeyword() {
+        return keyword;
+    }
+
     public List<Type> getTypeParam() {
         return typeParam;
     }
@@ -0,0 +1,43 @@
+package phd.distributed.snapshot;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * GAIsnap variant whose total order comes from a contention-tolerant clock
+ * instead of one fetch-and-increment per event.
+ *
+ * Each event reads the clock value c and tries a single CAS from c to c+1,
+ * taking c+1 as its stamp whether or not the CAS succeeds. A failed CAS
+ * means another thread already advanced the clock past c, so the stamp is
+ * shared with that thread instead of retrying (the GV4 scheme of TL2).
+ *
+ * The GAI ordering stays sound: once an event has its stamp s, the clock is
+ * at least s, so any event that starts afterwards gets a stamp greater than
+ * s. Two events only share a stamp when their acquisitions overlapped, and
+ * buildXE() breaks such ties by thread id like it does for CollectFAInc.
+ * Stamps are therefore dense but not unique.
+ */
+public class CollectCASInc extends CollectFAInc {
+
+    // The clock lives in the middle of the array so that the padding on both
+    // sides keeps it alone on its cache line.
+    private static final int PAD = 16;
+    private final AtomicIntegerArray clock = new AtomicIntegerArray(2 * PAD + 1);
+
+    public CollectCASInc(int numThreads) {
+        super(numThreads);
+    }
+
+    @Override
+    protected int nextCount() {
+        int c = clock.get(PAD);
+        // One attempt only: on failure the clock is already >= c + 1
+        clock.compareAndSet(PAD, c, c + 1);
+        return c + 1;
+    }
+
+    @Override
+    protected int currentCount() {
+        return clock.get(PAD);
+    }
+}
@@ -1,15 +1,11 @@
 package phd.distributed.snapshot;
 
-import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import clojure.java.api.Clojure;
 import clojure.lang.IPersistentVector;
-import clojure.lang.IFn;
-import clojure.lang.Keyword;
 
 import phd.distributed.datamodel.OperationCall;
 import phd.distributed.config.SystemConfig;
@@ -19,8 +15,6 @@ import phd.distributed.logging.DisruptorEventLogger;
 import phd.distributed.logging.EventLogger;
 
 
-import clojure.lang.IDeref;
-
 public class CollectFAInc extends Snapshot {
 
     private final AtomicInteger atomicCounter;
@@ -34,75 +28,58 @@ public class CollectFAInc extends Snapshot {
             : AsyncEventLogger.getInstance();
     }
 
-    // Clojure interop
-    private final IFn initLogsFn;
-    private final IFn writeLogFn;
-    private final IFn xeForJitFn;
-    private final Keyword KW_INVOKE;
-    private final Keyword KW_RETURN;
-    // Per-thread last op-id (to reuse for the corresponding return)
-    private final String[] lastOpIdPerThread;
-
-    // Per-thread operation index (for generating unique op-ids)
-    private final int[] localOpIndex;
+    // Java-side primitive log; converted to Clojure only in buildXE()
+    private final EventLog log;
 
     public CollectFAInc(int numThreads) {
         this.atomicCounter = new AtomicInteger(0);
+        this.log = new EventLog(numThreads);
+    }
 
-        // Require Clojure namespace log-tAs
-        Clojure.var("clojure.core", "require").invoke(Clojure.read("logtAs"));
-
-        // Get Clojure functions
-        this.initLogsFn = Clojure.var("logtAs", "init-logs!");
-        this.writeLogFn = Clojure.var("logtAs", "write-log-tAs!");
-        this.xeForJitFn = Clojure.var("logtAs", "xe-for-jit");
-
-        // Clojure keywords :invoke and :return
-        this.KW_INVOKE = Keyword.intern(null, "invoke");
-        this.KW_RETURN = Keyword.intern(null, "return");
 
-        // Initialize logs-var in Clojure
-        initLogsFn.invoke(numThreads);
-        this.lastOpIdPerThread = new String[numThreads];
-        this.localOpIndex = new int[numThreads];
+    /**
+     * Global total-order stamp for the next event. Events are later sorted
+     * by (count, tid), so subclasses may return equal stamps for events whose
+     * stamp acquisitions overlapped in real time.
+     */
+    protected int nextCount() {
+        return atomicCounter.incrementAndGet();
     }
 
+    /** Last stamp handed out; every later nextCount() returns more. */
+    protected int currentCount() {
+        return atomicCounter.get();
+    }
 
-    private String genOpId(int tid, int index) {
-        // Unique per (thread, operation index)
-        return "-" + tid + "-" + index;
+    /**
+     * Opens the online view of X_E for a consumer running alongside the
+     * producers (see {@link XeStream}). Must be called before they start.
+     *
+     * @param release free the events the stream has consumed; buildXE() is
+     *                then unavailable for this run
+     */
+    public XeStream openStream(boolean release) {
+        log.enablePublishing();
+        return new XeStream(log, this::currentCount, release);
     }
 
     @Override
     public void write(int id, Object inv) {
         OperationCall call = (OperationCall) inv;
-        String opName = call.method().getName();
-        Object arg    = call.args();
-        String args = call.argsAsString();
-        int count = atomicCounter.incrementAndGet();
-
-        // Increase the per-thread operation index
-        int opIndex = ++localOpIndex[id];
-        String opId = genOpId(id, opIndex);  // unique operation id for this invocation
-
-        // Remember op-id for this thread, to reuse in the corresponding return
-        lastOpIdPerThread[id] = opId;
-
-        // Call Clojure: (write-log-tAs! :invoke tid op-id op arg count)
-        writeLogFn.invoke(
-                KW_INVOKE,                           // :invoke
-                id,                                  // tid
-                Keyword.intern(null, opId), // op-id as keyword
-                Keyword.intern(null, opName),        // op as keyword, e.g. :enqueue
-                args,                                 // arg
-                count                                // count
-        );
+        Object arg    = frozen(call.args());
+        log.begin(id);
+        int count = nextCount();
+
+        // Op-ids are derived from the per-thread position in buildXE(),
+        // so the hot path only stores primitives and references; the raw
+        // args are decoded there as well.
+        log.append(id, EventLog.INVOKE, call.method().getKeyword(), arg, count);
 
         if (ASYNC_LOGGER != null) {
             Event invEvent = new Event(id, inv, count);
             ASYNC_LOGGER.logEvent(invEvent);
         } else {
-            LOGGER.info("Thread {} will write an invocation: {}({})", id, opName, arg);
+            LOGGER.info("Thread {} will write an invocation: {}({})", id, call.method().getName(), arg);
         }
 
 
@@ -110,68 +87,38 @@ public class CollectFAInc extends Snapshot {
 
     @Override
     public void snapshot(int id, Object resObject) {
-        int count = atomicCounter.incrementAndGet();
-
-        // You might later want to reuse the same op-id as the corresponding invocation.
-        String opId = lastOpIdPerThread[id];
-        String resString = objAsString(resObject);
+        log.begin(id);
+        int count = nextCount();
 
-        writeLogFn.invoke(
-                KW_RETURN,                           // :return
-                id,                                  // tid
-                Keyword.intern(null, opId),          // op-id
-                Keyword.intern(null, "return"),      // op = :return
-                resString,                           // arg (used as :res in XE)
-                count                                // count
-        );
+        // The return reuses the op-id of the last invocation of this thread.
+        // The result is decoded lazily in buildXE(), outside the
+        // measured interval of the algorithm under test.
+        log.append(id, EventLog.RETURN, null, frozen(resObject), count);
 
         if (ASYNC_LOGGER != null) {
             Event resEvent = new Event(id, resObject, count);
             ASYNC_LOGGER.logEvent(resEvent);
         } else {
-            LOGGER.info("Thread {} will write a response: {}", id, resString);
+            LOGGER.info("Thread {} will write a response: {}", id, resObject);
         }
     }
 
 
     /**
      * Build the X_E history (flattened execution) in Clojure format.
-     * Returns a Clojure IPersistentVector of event maps.
+     * Returns a Clojure IPersistentVector of event maps, merged from the
+     * per-thread logs by (count, tid) in XeBuilder.
      */
     @Override
     public IPersistentVector buildXE() {
-        // Diagnostic: inspect logs-var state before building XE.
-        // Guarded behind DEBUG to avoid reflective overhead in benchmarks.
         if (LOGGER.isDebugEnabled()) {
-            try {
-                java.util.ArrayList<?> logsVar =
-                    (java.util.ArrayList<?>) ((clojure.lang.IDeref) Clojure.var("logtAs", "logs-var")).deref();
-                int totalEvents = 0;
-                for (Object slot : logsVar) {
-                    if (slot instanceof clojure.lang.Counted) {
-                        totalEvents += ((clojure.lang.Counted) slot).count();
-                    }
-                }
-                LOGGER.debug("[CollectFAInc] logs-var: {} slots, {} total buffered events",
-                            logsVar.size(), totalEvents);
-            } catch (Exception e) {
-                LOGGER.warn("[CollectFAInc] Could not inspect logs-var: {}", e.getMessage());
-            }
+            LOGGER.debug("[CollectFAInc] event log: {} slots, {} total buffered events",
+                        log.threads(), log.totalSize());
         }
-        return (IPersistentVector) xeForJitFn.invoke();
-    }
-
-    private String toResultString(Object resObject) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        return XeBuilder.byCount(log);
     }
 
     public String objAsString(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj.getClass().isArray()) {
-            return Arrays.deepToString((Object[]) obj);
-        }
-        return obj.toString();
+        return valueAsString(obj);
     }
 }
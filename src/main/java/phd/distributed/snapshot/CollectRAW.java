@@ -1,14 +1,11 @@
 package phd.distributed.snapshot;
 
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import clojure.java.api.Clojure;
-import clojure.lang.IFn;
 import clojure.lang.IPersistentVector;
-import clojure.lang.Keyword;
 import phd.distributed.config.SystemConfig;
 import phd.distributed.datamodel.Event;
 import phd.distributed.datamodel.OperationCall;
@@ -16,9 +13,18 @@ import phd.distributed.logging.AsyncEventLogger;
 import phd.distributed.logging.DisruptorEventLogger;
 import phd.distributed.logging.EventLogger;
 
-import clojure.lang.IDeref;
-// o alternativamente: import clojure.lang.Var;
-
+/**
+ * RAWsnap: every return records a collect of the published invocation
+ * counts of all threads, and X_E is ordered from those views by
+ * {@link ViewOrder}.
+ *
+ * The view is dense, so each return costs O(numThreads) time and memory
+ * (4 bytes per thread, e.g. 40 KB per return at 10k processes) and
+ * ViewOrder runs in O(n*p^2). It is meant for the platform-thread
+ * process counts of the producer pool; for thousands of virtual-thread
+ * processes use gAIsnap or casSnap, whose cost per event does not depend
+ * on the number of threads.
+ */
 public class CollectRAW extends Snapshot {
 
     private static final Logger LOGGER = LogManager.getLogger();
@@ -31,136 +37,85 @@ public class CollectRAW extends Snapshot {
             : AsyncEventLogger.getInstance();
     }
 
-    // Clojure interop
-    private final IFn initLogsFn;
-    private final IFn writeInvFn;
-    private final IFn writeResFn;
-    private final IFn xeForJitFn;
-
-    // Per-thread last op-id (to reuse for the corresponding return)
-    private final String[] lastOpIdPerThread;
+    // Java-side primitive log; returns carry their view in the op slot
+    private final EventLog log;
 
-    // Per-thread operation index (for generating unique op-ids)
-    private final int[] localOpIndex;
+    // Published invocation count of thread t at index (t + 1) * PAD, so every
+    // counter sits on its own cache line. Thread t is the only writer.
+    private static final int PAD = 16;
+    private final AtomicIntegerArray published;
+    private final int numThreads;
 
     public CollectRAW(int numThreads) {
-        // Require Clojure namespace log-rAw
-        Clojure.var("clojure.core", "require").invoke(Clojure.read("logrAw"));
-
-        // Get Clojure functions
-        this.initLogsFn = Clojure.var("logrAw", "init-logs!");
-        this.writeInvFn = Clojure.var("logrAw", "log-invoke!");
-        this.writeResFn = Clojure.var("logrAw", "log-return!");
-        this.xeForJitFn = Clojure.var("logrAw", "xe-for-jit-from-logs");
-
-
-        // Initialize logs-var in Clojure
-        initLogsFn.invoke(numThreads);
-
-        this.lastOpIdPerThread = new String[numThreads];
-        this.localOpIndex = new int[numThreads];
-    }
-
-    private String genOpId(int tid, int index) {
-        // Unique per (thread, operation index)
-        return "-" + tid + "-" + index;
+        this.numThreads = numThreads;
+        this.log = new EventLog(numThreads);
+        this.published = new AtomicIntegerArray((numThreads + 2) * PAD);
     }
 
     @Override
     public void write(int id, Object inv) {
         OperationCall call = (OperationCall) inv;
-        String opName = call.method().getName();
-        Object arg    = call.args();
-        String args = call.argsAsString();
-
-        // Increase the per-thread operation index
-        int opIndex = ++localOpIndex[id];
-        String opId = genOpId(id, opIndex);  // unique operation id for this invocation
+        Object arg    = frozen(call.args());
 
-        // Remember op-id for this thread, to reuse in the corresponding return
-        lastOpIdPerThread[id] = opId;
-
-        // Call Clojure: (log-invoke! tid op-id op arg)
-        writeInvFn.invoke(
-                id,                               // tid
-                Keyword.intern(null, opId),       // op-id as keyword
-                Keyword.intern(null, opName),     // op as keyword, e.g. :enqueue
-                args                              // arg
-        );
+        // Record the invocation, then make it visible to the collects of the
+        // other threads. The volatile store orders it before the operation
+        // runs on the object under test.
+        log.append(id, EventLog.INVOKE, call.method().getKeyword(), arg, 0);
+        int slot = (id + 1) * PAD;
+        published.set(slot, published.get(slot) + 1);
 
         if (ASYNC_LOGGER != null) {
             Event invEvent = new Event(id, inv, id);
             ASYNC_LOGGER.logEvent(invEvent);
         } else {
-            LOGGER.info("Thread {} will write an invocation: {}({})", id, opName, arg);
+            LOGGER.info("Thread {} will write an invocation: {}({})", id, call.method().getName(), arg);
         }
     }
 
     @Override
     public void snapshot(int id, Object resObject) {
-        // Reuse the same op-id as the last invocation of this thread
-        String opId = lastOpIdPerThread[id];
-        String resString = objAsString(resObject);
-
-
-        if (opId == null) {
+        if (published.get((id + 1) * PAD) == 0) {
             // Optional: warn if snapshot is called before any invocation
             LOGGER.warn("Thread {} snapshot called without a previous invocation op-id.", id);
             // Got to throw here
         }
 
-        // Call Clojure: (log-return! tid op-id res)
-        writeResFn.invoke(
-                id,                               // tid
-                Keyword.intern(null, opId),       // op-id
-                resString                         // res
-        );
+        // RAW collect: read every published count once, one slot at a time.
+        // Like logrAw/log-return!, this is a collect, not an atomic snapshot.
+        int[] view = new int[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            view[t] = published.get((t + 1) * PAD);
+        }
+        log.append(id, EventLog.RETURN, view, frozen(resObject), 0);
 
         if (ASYNC_LOGGER != null) {
             Event resEvent = new Event(id, resObject, id);
             ASYNC_LOGGER.logEvent(resEvent);
         } else {
-            LOGGER.info("Thread {} will write a response: {}", id, resString);
+            LOGGER.info("Thread {} will write a response: {}", id, resObject);
         }
     }
 
     /**
      * Build the X_E history (flattened execution) in Clojure format.
-     * Returns a Clojure IPersistentVector of event maps.
+     * Returns a Clojure IPersistentVector of event maps, ordered from the
+     * recorded views by ViewOrder in XeBuilder.
      */
     @Override
     public IPersistentVector buildXE() {
-        // Diagnostic: inspect invs-var / returns-var state before building XE.
-        // Guarded behind DEBUG to avoid reflective overhead in benchmarks.
         if (LOGGER.isDebugEnabled()) {
-            try {
-                java.util.ArrayList<?> invsVar =
-                    (java.util.ArrayList<?>) ((clojure.lang.IDeref) Clojure.var("logrAw", "invs-var")).deref();
-                java.util.ArrayList<?> retsVar =
-                    (java.util.ArrayList<?>) ((clojure.lang.IDeref) Clojure.var("logrAw", "returns-var")).deref();
-                int totalInvs = 0, totalRets = 0;
-                for (Object slot : invsVar) {
-                    if (slot instanceof clojure.lang.Counted) totalInvs += ((clojure.lang.Counted) slot).count();
-                }
-                for (Object slot : retsVar) {
-                    if (slot instanceof clojure.lang.Counted) totalRets += ((clojure.lang.Counted) slot).count();
-                }
-                LOGGER.debug("[CollectRAW] invs-var: {} slots / {} invocations; returns-var: {} slots / {} returns",
-                            invsVar.size(), totalInvs, retsVar.size(), totalRets);
-            } catch (Exception e) {
-                LOGGER.warn("[CollectRAW] Could not inspect Clojure state: {}", e.getMessage());
-            }
+            LOGGER.debug("[CollectRAW] event log: {} slots, {} total buffered events",
+                        log.threads(), log.totalSize());
         }
-        return (IPersistentVector) xeForJitFn.invoke();
+        return XeBuilder.byViews(log);
+    }
+
+    /** Recorded events; returns carry their view in the op slot. For tests. */
+    EventLog log() {
+        return log;
     }
 
     public String objAsString(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj.getClass().isArray()) {
-            return Arrays.deepToString((Object[]) obj);
-        }
-        return obj.toString();
+        return valueAsString(obj);
     }
 }
\ No newline at end of file
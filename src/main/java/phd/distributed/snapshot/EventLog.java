@@ -0,0 +1,294 @@
+package phd.distributed.snapshot;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Per-thread, append-only event log backed by primitive arrays.
+ *
+ * Each slot (one per thread id) is a chain of chunks holding the event
+ * type, the global count, the operation and a reference to the raw
+ * argument/result. Appending never copies previously written entries: when
+ * the current chunk is full a new one is linked, so the producer hot path
+ * only performs array stores.
+ *
+ * Slots are sparse: a slot is allocated by the first append of its thread,
+ * and its chunks start at {@link #FIRST_CHUNK_SIZE} entries and double up to
+ * {@link #CHUNK_SIZE}. A log sized for thousands of logical processes (see
+ * virtual-thread producers) therefore costs one reference per unused tid
+ * and a few hundred bytes per thread that only runs a handful of operations.
+ *
+ * Thread-safety (SWMR per slot): thread tid is the sole writer of slot tid.
+ * Readers must only traverse the log after all producer threads have
+ * terminated (the happens-before edge of ProducerRuntime's session end), the
+ * same contract as the Clojure logs-var it replaces.
+ *
+ * Online mode ({@link #enablePublishing()}) relaxes this for one concurrent
+ * reader: after each append the owner publishes its slot size as a release
+ * store, and a reader may consume the first {@link #published(int)} events
+ * of a slot with {@link Cursor#nextWithin(int)} while the owner keeps
+ * appending. The owner also raises a busy flag ({@link #begin(int)}) before
+ * taking the stamp of an event, which the append clears, so the reader can
+ * tell which stamps may still be missing.
+ *
+ * A reader that will not come back to consumed events can use a
+ * {@link #releasingCursor(int)}, which unlinks each chunk from its slot once
+ * it has moved past it, so a long online run only keeps the unconsumed tail
+ * in memory. Once a chunk has been released the log no longer holds the
+ * whole history and {@link XeBuilder} refuses to build X_E from it.
+ */
+public final class EventLog {
+
+    public static final byte INVOKE = 0;
+    public static final byte RETURN = 1;
+
+    /** Maximum number of entries per chunk. */
+    static final int CHUNK_SIZE = 1024;
+
+    /** Entries of the first chunk of a slot. */
+    static final int FIRST_CHUNK_SIZE = 16;
+
+    static final class Chunk {
+        final byte[] types;
+        final int[] counts;
+        final Object[] ops;
+        final Object[] values;
+        int size;
+        Chunk next;
+
+        Chunk(int capacity) {
+            this.types  = new byte[capacity];
+            this.counts = new int[capacity];
+            this.ops    = new Object[capacity];
+            this.values = new Object[capacity];
+        }
+
+        int capacity() {
+            return types.length;
+        }
+    }
+
+    private static final class Slot {
+        // Moved forward only by a releasing cursor; the owner never reads it
+        Chunk head = new Chunk(FIRST_CHUNK_SIZE);
+        Chunk tail = head;
+        int size;
+        int released;
+    }
+
+    // Online mode only: published size of slot t at (t + 1) * PAD and its
+    // busy flag right after it, so each writer touches its own cache line.
+    private static final int PAD = 16;
+
+    // Written only by the owner of each slot, on its first append
+    private final Slot[] slots;
+    private AtomicIntegerArray marks;
+    // Written by the releasing reader, read after it has been joined
+    private boolean released;
+
+    public EventLog(int numThreads) {
+        this.slots = new Slot[numThreads];
+    }
+
+    public int threads() {
+        return slots.length;
+    }
+
+    /**
+     * Switches to online mode. Must be called before the producers start,
+     * i.e. with a happens-before edge to their first append.
+     */
+    public void enablePublishing() {
+        if (marks == null) {
+            marks = new AtomicIntegerArray((slots.length + 2) * PAD);
+        }
+    }
+
+    public boolean isPublishing() {
+        return marks != null;
+    }
+
+    /**
+     * Marks slot tid busy until its next append. Called by the owner before
+     * it takes the stamp of the event; a no-op unless publishing.
+     */
+    public void begin(int tid) {
+        if (marks != null) {
+            marks.set((tid + 1) * PAD + 1, 1);
+        }
+    }
+
+    /** Number of events of slot tid that are safe to read concurrently. */
+    public int published(int tid) {
+        return marks.get((tid + 1) * PAD);
+    }
+
+    /** True while thread tid holds a stamp it has not appended yet. */
+    public boolean busy(int tid) {
+        return marks.get((tid + 1) * PAD + 1) != 0;
+    }
+
+    /** Appends an event to slot tid. Must only be called by the owner of tid. */
+    public void append(int tid, byte type, Object op, Object value, int count) {
+        Slot slot = slots[tid];
+        if (slot == null) {
+            // Published to an online reader by the release store below
+            slot = new Slot();
+            slots[tid] = slot;
+        }
+        Chunk c = slot.tail;
+        if (c.size == c.capacity()) {
+            c = new Chunk(Math.min(2 * c.capacity(), CHUNK_SIZE));
+            slot.tail.next = c;
+            slot.tail = c;
+        }
+        int i = c.size;
+        c.types[i]  = type;
+        c.counts[i] = count;
+        c.ops[i]    = op;
+        c.values[i] = value;
+        c.size = i + 1;
+        slot.size++;
+        if (marks != null) {
+            // Release stores: the entry is visible before the new size,
+            // and the size before the busy flag drops
+            int m = (tid + 1) * PAD;
+            marks.lazySet(m, slot.size);
+            marks.lazySet(m + 1, 0);
+        }
+    }
+
+    /** Number of events recorded by thread tid. */
+    public int size(int tid) {
+        Slot s = slots[tid];
+        return (s == null) ? 0 : s.size;
+    }
+
+    /** Total number of events over all threads. */
+    public int totalSize() {
+        int total = 0;
+        for (Slot s : slots) {
+            if (s != null) {
+                total += s.size;
+            }
+        }
+        return total;
+    }
+
+    /** Number of leading events of slot tid dropped by a releasing cursor. */
+    public int released(int tid) {
+        Slot s = slots[tid];
+        return (s == null) ? 0 : s.released;
+    }
+
+    /** True once a releasing cursor dropped a chunk: the log is no longer complete. */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /** Number of threads that recorded at least one event. */
+    public int activeThreads() {
+        int active = 0;
+        for (Slot s : slots) {
+            if (s != null) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Sequential cursor over the events of one thread, in append order.
+     * It may be opened before the thread appends anything: the slot is
+     * looked up on the first advance.
+     */
+    public Cursor cursor(int tid) {
+        return new Cursor(this, tid, false);
+    }
+
+    /**
+     * Like {@link #cursor(int)} for a single online reader that consumes the
+     * slot once: every chunk {@link Cursor#nextWithin(int)} moves past is
+     * unlinked from the slot and becomes garbage.
+     */
+    public Cursor releasingCursor(int tid) {
+        return new Cursor(this, tid, true);
+    }
+
+    public static final class Cursor {
+        private final EventLog log;
+        private final int tid;
+        private final boolean release;
+        private Chunk chunk;
+        private int pos = -1;
+        private int index = -1;
+
+        private Cursor(EventLog log, int tid, boolean release) {
+            this.log = log;
+            this.tid = tid;
+            this.release = release;
+        }
+
+        /** Binds the cursor to its slot; false while the slot does not exist. */
+        private boolean bound() {
+            if (chunk == null) {
+                Slot s = log.slots[tid];
+                if (s == null) {
+                    return false;
+                }
+                chunk = s.head;
+            }
+            return true;
+        }
+
+        /** Advances to the next event; returns false when the slot is exhausted. */
+        public boolean next() {
+            if (!bound()) {
+                return false;
+            }
+            if (pos + 1 < chunk.size) {
+                pos++;
+                index++;
+                return true;
+            }
+            if (chunk.next != null && chunk.next.size > 0) {
+                chunk = chunk.next;
+                pos = 0;
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Advances within the first limit events of the slot without reading
+         * the chunk sizes, so it is safe against a concurrent owner as long as
+         * limit was obtained from {@link EventLog#published(int)}.
+         */
+        public boolean nextWithin(int limit) {
+            // A positive limit was published after the slot was created
+            if (index + 1 >= limit || !bound()) {
+                return false;
+            }
+            if (pos + 1 == chunk.capacity()) {
+                Chunk done = chunk;
+                chunk = chunk.next;
+                pos = 0;
+                if (release) {
+                    Slot s = log.slots[tid];
+                    s.head = chunk;
+                    s.released += done.capacity();
+                    log.released = true;
+                }
+            } else {
+                pos++;
+            }
+            index++;
+            return true;
+        }
+
+        public byte type()    { return chunk.types[pos]; }
+        public int count()    { return chunk.counts[pos]; }
+        public Object op()    { return chunk.ops[pos]; }
+        public Object value() { return chunk.values[pos]; }
+    }
+}
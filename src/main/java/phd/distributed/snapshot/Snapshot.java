@@ -1,8 +1,119 @@
 package phd.distributed.snapshot;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import clojure.lang.IPersistentVector;
+import phd.distributed.config.SystemConfig;
 
 public abstract class Snapshot {
+
+    /**
+     * Packs a (thread, per-thread operation index) pair into a single op-id:
+     * tid in the high 32 bits, index in the low 32 bits.
+     */
+    public static long packOpId(int tid, int index) {
+        return ((long) tid << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private boolean freezeCollections = SystemConfig.SNAPSHOT_FREEZE_COLLECTIONS;
+
+    /**
+     * Whether collection and map values are copied when they are logged
+     * (default: snapshot.freeze.collections). Turning it off removes the
+     * O(size) copy from the recorded interval, for algorithms that never
+     * mutate the collections they take or return; arrays are still cloned.
+     * Must be set before the producers start.
+     */
+    public void setFreezeCollections(boolean freezeCollections) {
+        this.freezeCollections = freezeCollections;
+    }
+
+    /** Argument or result to store in the log, see {@link #freeze(Object, boolean)}. */
+    protected Object frozen(Object value) {
+        return freeze(value, freezeCollections);
+    }
+
+    /** {@link #freeze(Object, boolean)} copying collections and maps too. */
+    protected static Object freeze(Object value) {
+        return freeze(value, true);
+    }
+
+    /**
+     * Immutable copy of an argument or result before it is stored in a log,
+     * so X_E records the value seen at invocation/return time even if the
+     * algorithm or the caller later mutates or reuses it. Arrays (object and
+     * primitive) are cloned; if collections is true, collections and maps
+     * are copied into unmodifiable collections of the same iteration order
+     * and rendering. Every other value is stored by reference and decoded
+     * lazily.
+     *
+     * The copy costs O(size) for collections and maps and runs on the
+     * producer thread: the snapshots take it before the invocation stamp and
+     * after the return stamp, so it delays the producer's next operation
+     * rather than stretching the recorded interval. Scalars, the common case
+     * for every spec, cost nothing.
+     */
+    protected static Object freeze(Object value, boolean collections) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Object[] arr) {
+            return arr.clone();
+        }
+        if (value.getClass().isArray()) {
+            return clonePrimitiveArray(value);
+        }
+        if (!collections) {
+            return value;
+        }
+        if (value instanceof Set<?> set) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(set));
+        }
+        if (value instanceof Collection<?> coll) {
+            return Collections.unmodifiableList(new ArrayList<>(coll));
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+        }
+        return value;
+    }
+
+    private static Object clonePrimitiveArray(Object array) {
+        if (array instanceof int[] a)     return a.clone();
+        if (array instanceof long[] a)    return a.clone();
+        if (array instanceof double[] a)  return a.clone();
+        if (array instanceof byte[] a)    return a.clone();
+        if (array instanceof char[] a)    return a.clone();
+        if (array instanceof short[] a)   return a.clone();
+        if (array instanceof float[] a)   return a.clone();
+        if (array instanceof boolean[] a) return a.clone();
+        return array;
+    }
+
+    /**
+     * String form used for args/results in X_E (same rendering as
+     * OperationCall.argsAsString). Called while building X_E, never on
+     * the producer threads.
+     */
+    public static String valueAsString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getClass().isArray()) {
+            // Wrapped so primitive arrays render by content as well
+            String s = Arrays.deepToString(new Object[] {value});
+            return s.substring(1, s.length() - 1);
+        }
+        return value.toString();
+    }
+
     public abstract void write(int id, Object invocation);
     public abstract void snapshot(int id, Object response);
     public abstract IPersistentVector buildXE();
@@ -0,0 +1,253 @@
+package phd.distributed.snapshot;
+
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Topological order of a CollectRAW history computed from per-return views.
+ *
+ * Each return records its view as a vector clock: view[u] is how many
+ * invocations of thread u it saw. The happens-before edges are the ones of
+ * logrAw/build-edges-as-events:
+ *
+ *   (a) inv_x -> ret_x
+ *   (b) ret_i -> inv_j  if view(i) is a proper subset of view(j) and inv_j is
+ *                       not in view(i)
+ *   (c) inv_k -> ret_i  if inv_k is in view(i)
+ *
+ * plus program order ret(u,k) -> inv(u,k+1), which (b) only implies when
+ * inv(u,k+1) has a return; adding it explicitly keeps a trailing pending
+ * invocation after its thread's last return, so every thread's events come
+ * out in program order.
+ *
+ * Views of the same thread grow monotonically, so with program order in
+ * place both families reduce to one edge per (return, thread):
+ * for (c) the last invocation of u in the view, and for (b) the first
+ * completed invocation of u outside the view whose own return dominates
+ * view(i). As the returns of thread t are visited in order their views
+ * grow, so that first dominating return of u only moves forward: one
+ * pointer per (t, u) sweeps u's returns once, an amortized O(1) number of
+ * O(p) dominance tests per (return, thread). The reduced graph has O(n*p)
+ * edges, is built in O(n*p^2), which is the size of the views times p, and
+ * has exactly the same reachability as the quadratic construction.
+ */
+public final class ViewOrder {
+
+    private static final Logger LOGGER = LogManager.getLogger(ViewOrder.class);
+
+    private final byte[] types;
+    private final int[] tids;
+    private final int[] indices;
+    private final int size;
+
+    private ViewOrder(byte[] types, int[] tids, int[] indices, int size) {
+        this.types = types;
+        this.tids = tids;
+        this.indices = indices;
+        this.size = size;
+    }
+
+    /** Number of events in the order. */
+    public int size() { return size; }
+
+    /** {@link EventLog#INVOKE} or {@link EventLog#RETURN}. */
+    public byte type(int i) { return types[i]; }
+
+    public int tid(int i) { return tids[i]; }
+
+    /** Per-thread index of the invocation/return (0-based). */
+    public int index(int i) { return indices[i]; }
+
+    /**
+     * @param invCounts invCounts[t] = invocations recorded by thread t
+     * @param views     views[t][k] = view of the k-th return of thread t
+     */
+    public static ViewOrder of(int[] invCounts, int[][][] views) {
+        int p = invCounts.length;
+
+        // ---- node numbering: invocations first, then returns ----
+        int[] invOff = new int[p + 1];
+        int[] retOff = new int[p + 1];
+        for (int t = 0; t < p; t++) {
+            invOff[t + 1] = invOff[t] + invCounts[t];
+            retOff[t + 1] = retOff[t] + views[t].length;
+        }
+        int nInv = invOff[p];
+        int nodes = nInv + retOff[p];
+
+        // A pending invocation is only part of the history if some view saw it
+        boolean[] present = new boolean[nodes];
+        int[] maxView = new int[p];
+        for (int t = 0; t < p; t++) {
+            for (int[] v : views[t]) {
+                for (int u = 0; u < p; u++) {
+                    if (v[u] > maxView[u]) maxView[u] = v[u];
+                }
+            }
+        }
+        for (int t = 0; t < p; t++) {
+            for (int k = 0; k < invCounts[t]; k++) {
+                present[invOff[t] + k] = k < views[t].length || k < maxView[t];
+            }
+            for (int k = 0; k < views[t].length; k++) {
+                present[nInv + retOff[t] + k] = true;
+            }
+        }
+
+        // ---- reduced edge list ----
+        EdgeList edges = new EdgeList(2 * nodes + 2 * retOff[p] * Math.max(1, p));
+        int[] dominating = new int[p];
+        for (int t = 0; t < p; t++) {
+            // dominating[u]: first return of u that may dominate the current view of t
+            Arrays.fill(dominating, 0);
+            for (int k = 0; k < views[t].length; k++) {
+                int ret = nInv + retOff[t] + k;
+                int[] v = views[t][k];
+
+                // (a) own invocation, and program order to the next one
+                edges.add(invOff[t] + k, ret);
+                if (k + 1 < invCounts[t]) {
+                    edges.add(ret, invOff[t] + k + 1);
+                }
+
+                for (int u = 0; u < p; u++) {
+                    int seen = Math.min(v[u], invCounts[u]);
+
+                    // (c) last visible invocation of u
+                    if (seen > 0 && !(u == t && seen - 1 == k)) {
+                        edges.add(invOff[u] + seen - 1, ret);
+                    }
+
+                    // (b) first completed invocation of u outside the view whose
+                    // return view dominates v
+                    int y = firstDominating(views[u], Math.max(dominating[u], seen), v);
+                    dominating[u] = y;
+                    if (y < views[u].length) {
+                        edges.add(ret, invOff[u] + y);
+                    }
+                }
+            }
+        }
+
+        return kahn(nodes, nInv, invOff, retOff, present, edges, p);
+    }
+
+    /** Smallest y >= from with views[y] >= v pointwise, or views.length. */
+    private static int firstDominating(int[][] threadViews, int from, int[] v) {
+        int y = from;
+        while (y < threadViews.length && !dominates(threadViews[y], v)) {
+            y++;
+        }
+        return y;
+    }
+
+    private static boolean dominates(int[] a, int[] b) {
+        for (int i = 0; i < b.length; i++) {
+            if (a[i] < b[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Kahn's algorithm over the reduced graph. Ready invocations are emitted
+     * before ready returns so the order adds as little real-time precedence
+     * as possible on top of the edges.
+     */
+    private static ViewOrder kahn(int nodes, int nInv, int[] invOff, int[] retOff,
+                                  boolean[] present, EdgeList edges, int p) {
+        // CSR adjacency
+        int[] start = new int[nodes + 1];
+        int[] indeg = new int[nodes];
+        for (int e = 0; e < edges.size; e++) {
+            start[edges.src[e] + 1]++;
+            indeg[edges.dst[e]]++;
+        }
+        for (int i = 0; i < nodes; i++) start[i + 1] += start[i];
+        int[] adj = new int[edges.size];
+        int[] fill = Arrays.copyOf(start, nodes);
+        for (int e = 0; e < edges.size; e++) {
+            adj[fill[edges.src[e]]++] = edges.dst[e];
+        }
+
+        int[] invQ = new int[nInv];
+        int[] retQ = new int[nodes - nInv];
+        int invHead = 0, invTail = 0, retHead = 0, retTail = 0;
+        int expected = 0;
+        for (int n = 0; n < nodes; n++) {
+            if (!present[n]) continue;
+            expected++;
+            if (indeg[n] == 0) {
+                if (n < nInv) invQ[invTail++] = n;
+                else retQ[retTail++] = n;
+            }
+        }
+
+        byte[] types = new byte[expected];
+        int[] tids = new int[expected];
+        int[] indices = new int[expected];
+        int out = 0;
+        while (invHead < invTail || retHead < retTail) {
+            int n = (invHead < invTail) ? invQ[invHead++] : retQ[retHead++];
+            if (n < nInv) {
+                int t = threadOf(invOff, n, p);
+                types[out] = EventLog.INVOKE;
+                tids[out] = t;
+                indices[out] = n - invOff[t];
+            } else {
+                int r = n - nInv;
+                int t = threadOf(retOff, r, p);
+                types[out] = EventLog.RETURN;
+                tids[out] = t;
+                indices[out] = r - retOff[t];
+            }
+            out++;
+            for (int e = start[n]; e < start[n + 1]; e++) {
+                int m = adj[e];
+                if (--indeg[m] == 0 && present[m]) {
+                    if (m < nInv) invQ[invTail++] = m;
+                    else retQ[retTail++] = m;
+                }
+            }
+        }
+
+        if (out != expected) {
+            LOGGER.warn("Cycle detected in RAW view edges; returning partial order of {} of {} events",
+                        out, expected);
+        }
+        return new ViewOrder(types, tids, indices, out);
+    }
+
+    /** Thread owning global position pos, given prefix offsets. */
+    private static int threadOf(int[] off, int pos, int p) {
+        int lo = 0, hi = p - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (off[mid] <= pos) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private static final class EdgeList {
+        int[] src;
+        int[] dst;
+        int size;
+
+        EdgeList(int capacity) {
+            src = new int[Math.max(16, capacity)];
+            dst = new int[src.length];
+        }
+
+        void add(int from, int to) {
+            if (size == src.length) {
+                src = Arrays.copyOf(src, size * 2);
+                dst = Arrays.copyOf(dst, size * 2);
+            }
+            src[size] = from;
+            dst[size] = to;
+            size++;
+        }
+    }
+}
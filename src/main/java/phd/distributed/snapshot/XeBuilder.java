@@ -0,0 +1,236 @@
+package phd.distributed.snapshot;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.ITransientCollection;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentArrayMap;
+import clojure.lang.PersistentVector;
+
+/**
+ * Builds X_E directly from a primitive {@link EventLog}, in the same map
+ * format as logtAs/xe-for-jit and logrAw/xe-for-jit:
+ *
+ *   {:type :invoke :op-id ... :tid ... :op ... :arg ...}
+ *   {:type :return :op-id ... :tid ... :res ...}
+ *
+ * The vector is filled through a transient in a single pass; the only
+ * allocations are the event maps themselves and the decoded arguments and
+ * results (see {@link #decode(Object)}). Op-ids are packed from the
+ * per-thread invocation index.
+ */
+public final class XeBuilder {
+
+    private static final Keyword KW_TYPE   = Keyword.intern(null, "type");
+    private static final Keyword KW_OP_ID  = Keyword.intern(null, "op-id");
+    private static final Keyword KW_TID    = Keyword.intern(null, "tid");
+    private static final Keyword KW_OP     = Keyword.intern(null, "op");
+    private static final Keyword KW_ARG    = Keyword.intern(null, "arg");
+    private static final Keyword KW_RES    = Keyword.intern(null, "res");
+    private static final Keyword KW_INVOKE = Keyword.intern(null, "invoke");
+    private static final Keyword KW_RETURN = Keyword.intern(null, "return");
+
+    private XeBuilder() {
+    }
+
+    private static void requireComplete(EventLog log) {
+        if (log.isReleased()) {
+            throw new IllegalStateException(
+                "The event log was consumed by a releasing stream; X_E is no longer complete");
+        }
+    }
+
+    /**
+     * GAIsnap order: k-way merge of the per-thread logs by (count, tid).
+     * Each slot is already sorted by count because a thread's stamps never
+     * decrease, so this is O(n log p) instead of a global sort.
+     */
+    public static IPersistentVector byCount(EventLog log) {
+        requireComplete(log);
+        int p = log.threads();
+        EventLog.Cursor[] cursors = new EventLog.Cursor[p];
+        int[] opIndex = new int[p];
+
+        // Binary min-heap of thread ids keyed by (current count, tid)
+        int[] heap = new int[p];
+        int[] keys = new int[p];
+        int n = 0;
+        for (int t = 0; t < p; t++) {
+            cursors[t] = log.cursor(t);
+            if (cursors[t].next()) {
+                keys[t] = cursors[t].count();
+                heap[n] = t;
+                siftUp(heap, keys, n++);
+            }
+        }
+
+        ITransientCollection xe = PersistentVector.EMPTY.asTransient();
+        while (n > 0) {
+            int t = heap[0];
+            EventLog.Cursor cur = cursors[t];
+            if (cur.type() == EventLog.INVOKE) {
+                opIndex[t]++;
+                xe = xe.conj(invoke(t, opIndex[t], cur.op(), decode(cur.value())));
+            } else {
+                xe = xe.conj(ret(t, opIndex[t], decode(cur.value())));
+            }
+            if (cur.next()) {
+                keys[t] = cur.count();
+            } else {
+                heap[0] = heap[--n];
+            }
+            siftDown(heap, keys, n);
+        }
+        return (IPersistentVector) xe.persistent();
+    }
+
+    /**
+     * RAW order: each return stores its view (an int[] of per-thread
+     * invocation counts) in the op slot of the log; {@link ViewOrder} turns
+     * those into a topological order, which keeps every thread in program
+     * order so the slots are consumed with one sequential cursor each.
+     */
+    public static IPersistentVector byViews(EventLog log) {
+        requireComplete(log);
+        int p = log.threads();
+        int[] invCounts = new int[p];
+        int[][][] views = new int[p][][];
+        for (int t = 0; t < p; t++) {
+            int[][] tv = new int[(log.size(t) + 1) / 2][];
+            int rets = 0;
+            EventLog.Cursor cur = log.cursor(t);
+            while (cur.next()) {
+                if (cur.type() == EventLog.INVOKE) {
+                    invCounts[t]++;
+                } else {
+                    tv[rets++] = (int[]) cur.op();
+                }
+            }
+            views[t] = (rets == tv.length) ? tv : Arrays.copyOf(tv, rets);
+        }
+
+        ViewOrder order = ViewOrder.of(invCounts, views);
+
+        EventLog.Cursor[] cursors = new EventLog.Cursor[p];
+        for (int t = 0; t < p; t++) {
+            cursors[t] = log.cursor(t);
+        }
+        ITransientCollection xe = PersistentVector.EMPTY.asTransient();
+        for (int i = 0; i < order.size(); i++) {
+            int t = order.tid(i);
+            EventLog.Cursor cur = cursors[t];
+            if (!cur.next() || cur.type() != order.type(i)) {
+                throw new IllegalStateException("RAW order is not in program order for thread " + t);
+            }
+            int index = order.index(i) + 1;
+            if (cur.type() == EventLog.INVOKE) {
+                xe = xe.conj(invoke(t, index, cur.op(), decode(cur.value())));
+            } else {
+                xe = xe.conj(ret(t, index, decode(cur.value())));
+            }
+        }
+        return (IPersistentVector) xe.persistent();
+    }
+
+    static PersistentArrayMap invoke(int tid, int index, Object op, Object arg) {
+        return new PersistentArrayMap(new Object[] {
+            KW_TYPE,  KW_INVOKE,
+            KW_OP_ID, Snapshot.packOpId(tid, index),
+            KW_TID,   tid,
+            KW_OP,    op,
+            KW_ARG,   arg
+        });
+    }
+
+    static PersistentArrayMap ret(int tid, int index, Object res) {
+        return new PersistentArrayMap(new Object[] {
+            KW_TYPE,  KW_RETURN,
+            KW_OP_ID, Snapshot.packOpId(tid, index),
+            KW_TID,   tid,
+            KW_RES,   res
+        });
+    }
+
+    /**
+     * Typed X_E value of a raw argument or result, decoded once here so the
+     * specs compare values directly instead of re-parsing strings on every
+     * search step:
+     *
+     *   null, "null", "nil"      -> nil (as logtAs/normalize-null)
+     *   Boolean                  -> Boolean
+     *   Long/Integer/Short/Byte  -> Long
+     *   Double/Float             -> Double
+     *   Object[] (argument tuple) -> vector of decoded elements
+     *   primitive array          -> vector of decoded elements
+     *   anything else            -> its toString()
+     *
+     * Integral and floating types are widened so that, e.g., an Integer
+     * argument equals the Long a spec would compare it with.
+     */
+    static Object decode(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Long
+                || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float f) {
+            return f.doubleValue();
+        }
+        if (value instanceof Object[] tuple) {
+            Object[] out = new Object[tuple.length];
+            for (int i = 0; i < tuple.length; i++) {
+                out[i] = decode(tuple[i]);
+            }
+            return PersistentVector.adopt(out);
+        }
+        if (value.getClass().isArray()) {
+            int n = Array.getLength(value);
+            Object[] out = new Object[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = decode(Array.get(value, i));
+            }
+            return PersistentVector.adopt(out);
+        }
+        String s = value.toString();
+        if ("null".equals(s) || "nil".equals(s)) {
+            return null;
+        }
+        return s;
+    }
+
+    // ---- heap helpers over (keys[tid], tid), shared with XeStream ----
+
+    static boolean less(int[] keys, int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    static void siftUp(int[] heap, int[] keys, int i) {
+        int t = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(keys, t, heap[parent])) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = t;
+    }
+
+    static void siftDown(int[] heap, int[] keys, int n) {
+        if (n == 0) return;
+        int i = 0;
+        int t = heap[0];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(keys, heap[child + 1], heap[child])) child++;
+            if (!less(keys, heap[child], t)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = t;
+    }
+}
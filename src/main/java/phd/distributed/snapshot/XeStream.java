@@ -0,0 +1,128 @@
+package phd.distributed.snapshot;
+
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Online GAIsnap order: emits the X_E of a publishing {@link EventLog} while
+ * its producers are still appending, in the same (count, tid) order and map
+ * format as {@link XeBuilder#byCount(EventLog)}.
+ *
+ * An event may only be emitted once no event with a smaller key can still
+ * show up. Each {@link #poll(Consumer)} computes a safe bound B and emits the
+ * published events with count &lt;= B:
+ *
+ *   - the clock is read first, so any event that takes its stamp after the
+ *     poll starts gets a stamp above that value;
+ *   - a thread that is busy (holds a stamp it has not published) is bounded
+ *     by the count of its last published event, since the stamps of one
+ *     thread strictly increase.
+ *
+ * B is the minimum of those values. The busy flag of a thread is read
+ * before its published size, so an event that is neither busy nor pending
+ * is already visible. Ties on count are broken by thread id, which is why
+ * events with count exactly B are safe too.
+ *
+ * The read heads are kept in the same (count, tid) min-heap as
+ * {@link XeBuilder#byCount(EventLog)}, so emitting an event costs
+ * O(log p) and only the bound computation visits every thread.
+ *
+ * A releasing stream frees every chunk of the log it has consumed (see
+ * {@link EventLog#releasingCursor(int)}), so memory is bounded by the
+ * unconsumed tail instead of the length of the run; X_E can then no longer
+ * be built from the log.
+ *
+ * Not thread-safe: one consumer thread, which must not overlap with
+ * buildXE() on the same log.
+ */
+public final class XeStream {
+
+    private final EventLog log;
+    private final IntSupplier clock;
+    private final EventLog.Cursor[] cursors;
+    private final boolean[] hasHead;  // cursor stands on a read, unemitted event
+    private final int[] lastCount;    // count of the last event read per thread
+    private final int[] heap;         // threads with a head, by (lastCount, tid)
+    private int heapSize;
+    private final int[] opIndex;
+    private long emitted;
+
+    XeStream(EventLog log, IntSupplier clock) {
+        this(log, clock, false);
+    }
+
+    XeStream(EventLog log, IntSupplier clock, boolean release) {
+        this.log = log;
+        this.clock = clock;
+        int p = log.threads();
+        this.cursors = new EventLog.Cursor[p];
+        this.hasHead = new boolean[p];
+        this.lastCount = new int[p];
+        this.heap = new int[p];
+        this.opIndex = new int[p];
+        for (int t = 0; t < p; t++) {
+            cursors[t] = release ? log.releasingCursor(t) : log.cursor(t);
+        }
+    }
+
+    /**
+     * Emits every event that is safe so far to sink, in X_E order.
+     * Once the producers have terminated, one call drains the log.
+     *
+     * @return number of events emitted by this call
+     */
+    public int poll(Consumer<Object> sink) {
+        int p = cursors.length;
+        int bound = clock.getAsInt();
+        for (int t = 0; t < p; t++) {
+            boolean busy = log.busy(t);
+            if (!hasHead[t]) {
+                fill(t, log.published(t));
+            }
+            if (busy) {
+                bound = Math.min(bound, lastCount[t]);
+            }
+        }
+
+        int n = 0;
+        while (heapSize > 0 && lastCount[heap[0]] <= bound) {
+            int t = heap[0];
+            emit(t, sink);
+            n++;
+            // Only events published before the bound was taken are safe
+            if (cursors[t].nextWithin(log.published(t))) {
+                lastCount[t] = cursors[t].count();
+            } else {
+                hasHead[t] = false;
+                heap[0] = heap[--heapSize];
+            }
+            XeBuilder.siftDown(heap, lastCount, heapSize);
+        }
+        emitted += n;
+        return n;
+    }
+
+    /** Total number of events emitted so far. */
+    public long emitted() {
+        return emitted;
+    }
+
+    private void fill(int t, int limit) {
+        if (cursors[t].nextWithin(limit)) {
+            hasHead[t] = true;
+            lastCount[t] = cursors[t].count();
+            heap[heapSize] = t;
+            XeBuilder.siftUp(heap, lastCount, heapSize++);
+        }
+    }
+
+    private void emit(int t, Consumer<Object> sink) {
+        EventLog.Cursor cur = cursors[t];
+        if (cur.type() == EventLog.INVOKE) {
+            opIndex[t]++;
+            sink.accept(XeBuilder.invoke(t, opIndex[t], cur.op(), XeBuilder.decode(cur.value())));
+        } else {
+            sink.accept(XeBuilder.ret(t, opIndex[t], XeBuilder.decode(cur.value())));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package phd.distributed.verifier;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import clojure.lang.Util;
+
+/**
+ * Bounded set of linearization configurations already known to fail.
+ *
+ * A configuration is the set of operations linearized so far (a bitset over
+ * operation indices) together with the abstract state of the sequential
+ * specification. Two search paths that reach the same configuration have
+ * exactly the same future, so once one of them fails the other can be
+ * pruned. Keys compare the full state with Clojure equality, never just its
+ * hash, so a collision can not prune a live branch.
+ *
+ * The cache is bounded by the memory of its keys, not their number: every
+ * entry copies an n/64-word bitset, so a fixed entry count would grow with
+ * the history length (100k ops x 100k entries is about 1.25 GB). The
+ * abstract states are not counted; they are persistent values mostly
+ * shared with the search.
+ *
+ * Eviction is LRU over a LinkedHashMap in access order; evicting only costs
+ * re-exploration, never soundness. Not thread-safe: one cache per search.
+ */
+public final class ConfigurationCache implements ConfigurationSet {
+
+    private static final Object PRESENT = new Object();
+
+    /** Approximate bytes of a key besides its bitset: Key, array header, map entry. */
+    private static final long ENTRY_OVERHEAD_BYTES = 80;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    /** @param maxBytes memory budget for the keys (0 disables the cache) */
+    public ConfigurationCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Approximate memory taken by one entry for the given bitset. */
+    static long entryBytes(long[] done) {
+        return 8L * done.length + ENTRY_OVERHEAD_BYTES;
+    }
+
+    @Override
+    public boolean contains(long[] done, Object state) {
+        if (maxBytes <= 0) return false;
+        boolean found = entries.get(new Key(done, state)) != null;
+        if (found) hits++; else misses++;
+        return found;
+    }
+
+    @Override
+    public void add(long[] done, Object state) {
+        long cost = entryBytes(done);
+        if (cost > maxBytes) return;
+        if (entries.put(new Key(done.clone(), state), PRESENT) != null) return;
+        bytes += cost;
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (bytes > maxBytes) {
+            bytes -= entryBytes(eldest.next().done);
+            eldest.remove();
+        }
+    }
+
+    public int size() { return entries.size(); }
+    /** Approximate memory taken by the stored keys. */
+    public long bytes() { return bytes; }
+    public long hits() { return hits; }
+    public long misses() { return misses; }
+
+    static final class Key {
+        final long[] done;
+        final Object state;
+        final int hash;
+
+        Key(long[] done, Object state) {
+            this.done = done;
+            this.state = state;
+            this.hash = 31 * Arrays.hashCode(done) + Util.hasheq(state);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key k)) return false;
+            return hash == k.hash && Arrays.equals(done, k.done) && Util.equiv(state, k.state);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package phd.distributed.verifier;
+
+/**
+ * Set of linearization configurations (done bitset + spec state) already
+ * known to fail, consulted by the JIT search before expanding a node.
+ */
+public interface ConfigurationSet {
+
+    /** True if (done, state) was already explored and failed. */
+    boolean contains(long[] done, Object state);
+
+    /** Records a failed configuration. The bitset is copied. */
+    void add(long[] done, Object state);
+}
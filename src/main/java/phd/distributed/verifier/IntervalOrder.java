@@ -0,0 +1,133 @@
+package phd.distributed.verifier;
+
+import java.util.Arrays;
+
+/**
+ * Real-time precedence of a complete history as an interval order.
+ *
+ * Operation a precedes b iff ret(a) < inv(b). With operations indexed by
+ * increasing invocation position, an undone operation b can be linearized
+ * next iff no other undone operation returned before b was invoked, i.e.
+ * iff inv(b) < min{ret(a) : a undone}. The ready set is therefore a prefix
+ * of the undone operations in invocation order, bounded by the minimal
+ * return among them, and no pairwise predecessor sets are needed.
+ *
+ * Both the done set in invocation order and the done set in return order
+ * are kept as long[] bitsets; the minimal pending return is the first clear
+ * bit of the latter. Computing the candidates costs O(words + |ready|).
+ * The invocation-order bitset doubles as the key for ConfigurationCache.
+ *
+ * Not thread-safe: one instance per search, updated on descent/backtrack;
+ * parallel searches give every forked branch its own {@link #copy()}.
+ */
+public final class IntervalOrder {
+
+    private final int n;
+    private final int[] inv;
+    private final int[] ret;
+    private final int[] byRet;      // op indices sorted by return position
+    private final int[] retRank;    // op -> position in byRet
+    private final long[] done;      // bit i: op i linearized
+    private final long[] doneByRet; // bit r: op byRet[r] linearized
+    private int doneCount;
+
+    /**
+     * @param inv invocation positions, strictly increasing
+     * @param ret return positions, ret[i] > inv[i]
+     */
+    public IntervalOrder(int[] inv, int[] ret) {
+        this.n = inv.length;
+        this.inv = inv.clone();
+        this.ret = ret.clone();
+        for (int i = 1; i < n; i++) {
+            if (inv[i] <= inv[i - 1]) {
+                throw new IllegalArgumentException("Operations must be sorted by invocation position");
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(ret[a], ret[b]));
+        this.byRet = new int[n];
+        this.retRank = new int[n];
+        for (int r = 0; r < n; r++) {
+            byRet[r] = order[r];
+            retRank[order[r]] = r;
+        }
+        int words = (n + 63) >>> 6;
+        this.done = new long[words];
+        this.doneByRet = new long[words];
+    }
+
+    private IntervalOrder(IntervalOrder o) {
+        this.n = o.n;
+        this.inv = o.inv;
+        this.ret = o.ret;
+        this.byRet = o.byRet;
+        this.retRank = o.retRank;
+        this.done = o.done.clone();
+        this.doneByRet = o.doneByRet.clone();
+        this.doneCount = o.doneCount;
+    }
+
+    /** Independent copy of the done sets, for a forked search branch. */
+    public IntervalOrder copy() {
+        return new IntervalOrder(this);
+    }
+
+    public int size() { return n; }
+
+    public int doneCount() { return doneCount; }
+
+    /** Live bitset of linearized operations (do not modify). */
+    public long[] doneBits() { return done; }
+
+    public boolean isDone(int op) {
+        return (done[op >>> 6] & (1L << op)) != 0;
+    }
+
+    public void markDone(int op) {
+        done[op >>> 6] |= 1L << op;
+        int r = retRank[op];
+        doneByRet[r >>> 6] |= 1L << r;
+        doneCount++;
+    }
+
+    public void unmarkDone(int op) {
+        done[op >>> 6] &= ~(1L << op);
+        int r = retRank[op];
+        doneByRet[r >>> 6] &= ~(1L << r);
+        doneCount--;
+    }
+
+    /** Operations that may be linearized next, in invocation order. */
+    public int[] candidates() {
+        int r = firstClear(doneByRet, n);
+        if (r >= n) return new int[0];
+        int bound = ret[byRet[r]];
+        int[] out = new int[8];
+        int k = 0;
+        for (int i = firstClear(done, n); i < n && inv[i] < bound; i = nextClear(done, i + 1, n)) {
+            if (k == out.length) out = Arrays.copyOf(out, k * 2);
+            out[k++] = i;
+        }
+        return (k == out.length) ? out : Arrays.copyOf(out, k);
+    }
+
+    private static int firstClear(long[] bits, int n) {
+        return nextClear(bits, 0, n);
+    }
+
+    private static int nextClear(long[] bits, int from, int n) {
+        if (from >= n) return n;
+        int w = from >>> 6;
+        long word = ~bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                return Math.min(i, n);
+            }
+            if (++w == bits.length) return n;
+            word = ~bits[w];
+        }
+    }
+}
@@ -2,7 +2,9 @@ package phd.distributed.verifier;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
 
@@ -25,6 +27,9 @@ public class JITLinUndoTester<S extends Undoable> {
     private Event[] events;
     private int maxReached = 0;
     private volatile boolean interrupted = false;
+    private SearchBudget budget = null;
+    private boolean reportFailure = true;
+    private int[] linearization = null;
 
     @SuppressWarnings("unchecked")
     public JITLinUndoTester(S seqObj, int p, long maxSize, boolean verbose) {
@@ -41,6 +46,37 @@ public class JITLinUndoTester<S extends Undoable> {
         }
     }
 
+    /** Optional node/deadline budget, polled once per search step. */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /** Whether a failed solve() logs the failing prefix at ERROR (default true). */
+    public void setReportFailure(boolean reportFailure) {
+        this.reportFailure = reportFailure;
+    }
+
+    /**
+     * Thread of each linearized operation, in linearization order, after a
+     * successful solve(); null otherwise. Operations of a thread are
+     * linearized in their program order.
+     */
+    public int[] linearizationThreads() {
+        return linearization;
+    }
+
+    // The fires still on the stack at success are exactly the current path
+    private static int[] firedThreads(Deque<StackObject> stack) {
+        int[] out = new int[stack.size()];
+        int k = 0;
+        for (Iterator<StackObject> it = stack.descendingIterator(); it.hasNext(); ) {
+            if (it.next() instanceof UndoFireOthersObj u && u.prev instanceof UndoConfig.Pending) {
+                out[k++] = u.t1;
+            }
+        }
+        return Arrays.copyOf(out, k);
+    }
+
     // Factories to be used in SharedLog
     public MkInvoke<S> mkInvoke() {
         return (t, msg, op) -> new InvokeEvent<>(t, msg, op);
@@ -130,6 +166,9 @@ public class JITLinUndoTester<S extends Undoable> {
 
         while (current != null || !stack.isEmpty()) {
             if (interrupted) return Solver.Interrupted;
+            if (budget != null && !budget.tick()) {
+                return (budget.reason() == SearchBudget.Reason.NODES) ? Solver.OutOfSteam : Solver.Interrupted;
+            }
 
             count++;
             if (count >= maxSize) {
@@ -145,7 +184,10 @@ public class JITLinUndoTester<S extends Undoable> {
                 int i = ((SolveObj) current).i;
 
                 // Base case
-                if (i == es.length) return Solver.Success;
+                if (i == es.length) {
+                    linearization = firedThreads(stack);
+                    return Solver.Success;
+                }
                 if (i > maxReached) maxReached = i;
 
                 Event ev = es[i];
@@ -281,7 +323,9 @@ public class JITLinUndoTester<S extends Undoable> {
         }
 
         // If we exit the loop without success, it's a failure
-        debug(es);
+        if (reportFailure) {
+            debug(es);
+        }
         return Solver.Failure;
     }
 }
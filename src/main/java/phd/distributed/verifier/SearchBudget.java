@@ -0,0 +1,82 @@
+package phd.distributed.verifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-count and wall-clock budget for a linearizability search.
+ *
+ * The search calls {@link #tick()} once per expanded node and abandons the
+ * branch as soon as it returns false. The deadline and the interrupt status
+ * of the thread that created the budget are polled every 1024 nodes, so the
+ * cost per node is one atomic increment. Parallel workers share the budget,
+ * which lets an interrupt of the calling thread stop all of them.
+ *
+ * Once exhausted a budget stays exhausted; a search that gave up this way
+ * has no verdict and must be reported as unknown, never as a violation.
+ */
+public final class SearchBudget {
+
+    /** Why the search stopped early. */
+    public enum Reason { NONE, NODES, DEADLINE, INTERRUPTED }
+
+    private static final int POLL_MASK = 1023;
+
+    private final long maxNodes;
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final long startNanos;
+    private final Thread owner;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile Reason reason = Reason.NONE;
+
+    /**
+     * @param maxNodes maximum number of expanded nodes, &lt;= 0 for no limit
+     * @param timeout  wall-clock limit from now, null for none; a zero or
+     *                 negative timeout has already expired
+     */
+    public SearchBudget(long maxNodes, Duration timeout) {
+        this.maxNodes = maxNodes;
+        this.startNanos = System.nanoTime();
+        this.hasDeadline = timeout != null;
+        this.deadlineNanos = hasDeadline ? startNanos + timeout.toNanos() : 0L;
+        this.owner = Thread.currentThread();
+        if (hasDeadline && (timeout.isNegative() || timeout.isZero())) {
+            exhaust(Reason.DEADLINE);
+        }
+    }
+
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0L, null);
+    }
+
+    /** Accounts one node; false once the budget is exhausted. */
+    public boolean tick() {
+        if (reason != Reason.NONE) return false;
+        long n = nodes.incrementAndGet();
+        if (maxNodes > 0 && n > maxNodes) return exhaust(Reason.NODES);
+        if ((n & POLL_MASK) == 0) {
+            if (owner.isInterrupted()) return exhaust(Reason.INTERRUPTED);
+            if (hasDeadline && System.nanoTime() - deadlineNanos > 0) return exhaust(Reason.DEADLINE);
+        }
+        return true;
+    }
+
+    /** Stops every search sharing this budget. */
+    public void cancel() {
+        exhaust(Reason.INTERRUPTED);
+    }
+
+    private boolean exhaust(Reason r) {
+        if (reason == Reason.NONE) reason = r;
+        return false;
+    }
+
+    public boolean isExhausted() { return reason != Reason.NONE; }
+
+    public Reason reason() { return reason; }
+
+    public long nodes() { return nodes.get(); }
+
+    public Duration elapsed() { return Duration.ofNanos(System.nanoTime() - startNanos); }
+}
@@ -0,0 +1,55 @@
+package phd.distributed.verifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class SeqUndoableDeque implements Undoable {
+
+    private final Deque<Object> d = new ArrayDeque<>();
+    private final Deque<Runnable> undoStack = new ArrayDeque<>();
+
+    /** Inserta al frente. */
+    public void offerFirst(Object x) {
+        d.addFirst(x);
+        undoStack.push(() -> d.removeFirst());
+    }
+
+    /** Inserta al fondo. */
+    public void offerLast(Object x) {
+        d.addLast(x);
+        undoStack.push(() -> d.removeLast());
+    }
+
+    /** Extrae del frente: devuelve el elemento o null. */
+    public Object pollFirst() {
+        if (!d.isEmpty()) {
+            Object v = d.removeFirst();
+            undoStack.push(() -> d.addFirst(v));
+            return v;
+        }
+        undoStack.push(() -> {});
+        return null;
+    }
+
+    /** Extrae del fondo: devuelve el elemento o null. */
+    public Object pollLast() {
+        if (!d.isEmpty()) {
+            Object v = d.removeLast();
+            undoStack.push(() -> d.addLast(v));
+            return v;
+        }
+        undoStack.push(() -> {});
+        return null;
+    }
+
+    @Override
+    public void undo() {
+        if (undoStack.isEmpty())
+            throw new IllegalStateException("Nothing to undo");
+        undoStack.pop().run();
+    }
+
+    @Override
+    public String toString() {
+        return "SeqUndoableDeque" + d.toString();
+    }
+}
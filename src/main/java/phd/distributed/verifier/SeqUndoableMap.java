@@ -0,0 +1,48 @@
+package phd.distributed.verifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SeqUndoableMap implements Undoable {
+
+    private final Map<Object, Object> m = new HashMap<>();
+    private final Deque<Runnable> undoStack = new ArrayDeque<>();
+
+    /** put(k, v): devuelve el valor anterior o null. */
+    public Object put(Object k, Object v) {
+        boolean had = m.containsKey(k);
+        Object old = m.put(k, v);
+        undoStack.push(had ? () -> m.put(k, old) : () -> m.remove(k));
+        return old;
+    }
+
+    /** get(k): valor actual o null; registra un paso vacío. */
+    public Object get(Object k) {
+        undoStack.push(() -> {});
+        return m.get(k);
+    }
+
+    /** remove(k): devuelve el valor anterior o null. */
+    public Object remove(Object k) {
+        if (m.containsKey(k)) {
+            Object old = m.remove(k);
+            undoStack.push(() -> m.put(k, old));
+            return old;
+        }
+        undoStack.push(() -> {});
+        return null;
+    }
+
+    @Override
+    public void undo() {
+        if (undoStack.isEmpty())
+            throw new IllegalStateException("Nothing to undo");
+        undoStack.pop().run();
+    }
+
+    @Override
+    public String toString() {
+        return "SeqUndoableMap" + m.toString();
+    }
+}
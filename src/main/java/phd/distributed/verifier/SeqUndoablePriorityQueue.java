@@ -0,0 +1,53 @@
+package phd.distributed.verifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cola de prioridad secuencial (poll devuelve el mínimo) como multiconjunto
+ * ordenado: elemento -> multiplicidad. Tanto los pasos como sus undo son
+ * O(log n), a diferencia de quitar un elemento arbitrario de un heap.
+ */
+public class SeqUndoablePriorityQueue implements Undoable {
+
+    private final TreeMap<Object, Integer> q = new TreeMap<>();
+    private final Deque<Runnable> undoStack = new ArrayDeque<>();
+
+    /** Enqueue secuencial: agrega una ocurrencia de x. */
+    public void enqueue(Object x) {
+        q.merge(x, 1, Integer::sum);
+        undoStack.push(() -> removeOne(x));
+    }
+
+    /** Dequeue secuencial: devuelve el mínimo o null si está vacía. */
+    public Object dequeue() {
+        Map.Entry<Object, Integer> min = q.firstEntry();
+        if (min != null) {
+            Object v = min.getKey();
+            removeOne(v);
+            undoStack.push(() -> q.merge(v, 1, Integer::sum));
+            return v;
+        } else {
+            // Registramos un paso "vacío" para poder deshacer simétricamente
+            undoStack.push(() -> {});
+            return null;
+        }
+    }
+
+    private void removeOne(Object x) {
+        q.computeIfPresent(x, (k, n) -> (n == 1) ? null : n - 1);
+    }
+
+    @Override
+    public void undo() {
+        if (undoStack.isEmpty())
+            throw new IllegalStateException("Nothing to undo");
+        undoStack.pop().run();
+    }
+
+    @Override
+    public String toString() {
+        return "SeqUndoablePriorityQueue" + q.toString();
+    }
+}
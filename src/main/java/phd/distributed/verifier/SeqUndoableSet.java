@@ -0,0 +1,43 @@
+package phd.distributed.verifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SeqUndoableSet implements Undoable {
+
+    private final Set<Object> s = new HashSet<>();
+    private final Deque<Runnable> undoStack = new ArrayDeque<>();
+
+    /** add(x): true si x no estaba. */
+    public boolean add(Object x) {
+        boolean added = s.add(x);
+        undoStack.push(added ? () -> s.remove(x) : () -> {});
+        return added;
+    }
+
+    /** remove(x): true si x estaba. */
+    public boolean remove(Object x) {
+        boolean removed = s.remove(x);
+        undoStack.push(removed ? () -> s.add(x) : () -> {});
+        return removed;
+    }
+
+    /** contains(x): no modifica el estado, pero registra un paso vacío. */
+    public boolean contains(Object x) {
+        undoStack.push(() -> {});
+        return s.contains(x);
+    }
+
+    @Override
+    public void undo() {
+        if (undoStack.isEmpty())
+            throw new IllegalStateException("Nothing to undo");
+        undoStack.pop().run();
+    }
+
+    @Override
+    public String toString() {
+        return "SeqUndoableSet" + s.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package phd.distributed.verifier;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe {@link ConfigurationSet} shared by the workers of a parallel
+ * JIT search, so a configuration refuted by one worker prunes it for all.
+ *
+ * Bounded by key memory like {@link ConfigurationCache}, but without
+ * eviction: once maxBytes are used, new configurations are simply not
+ * recorded. That keeps
+ * lookups lock-free and only costs re-exploration, never soundness.
+ */
+public final class SharedConfigurationCache implements ConfigurationSet {
+
+    private final long maxBytes;
+    private final Set<ConfigurationCache.Key> entries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /** @param maxBytes memory budget for the keys (0 disables the cache) */
+    public SharedConfigurationCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public boolean contains(long[] done, Object state) {
+        if (maxBytes <= 0) return false;
+        return entries.contains(new ConfigurationCache.Key(done, state));
+    }
+
+    @Override
+    public void add(long[] done, Object state) {
+        long cost = ConfigurationCache.entryBytes(done);
+        if (bytes.get() + cost > maxBytes) return;
+        if (entries.add(new ConfigurationCache.Key(done.clone(), state))) {
+            size.incrementAndGet();
+            // Concurrent adds may overshoot the budget by one entry per worker
+            bytes.addAndGet(cost);
+        }
+    }
+
+    public int size() { return size.get(); }
+    /** Approximate memory taken by the stored keys. */
+    public long bytes() { return bytes.get(); }
+}
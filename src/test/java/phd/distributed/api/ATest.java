@@ -0,0 +1,91 @@
+package phd.distributed.api;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import phd.distributed.datamodel.MethodInf;
+
+class ATest {
+
+    private static MethodInf method(A alg, String name) {
+        return alg.methods().stream().filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testNonThrowingPolicyRecordsPollForRemove() {
+        // Given
+        A alg = new A("java.util.ArrayDeque", EmptyPolicy.NON_THROWING, "offer", "remove");
+
+        // When / Then: remove() is replaced by poll() in the method list, so
+        // the history records what runs
+        assertTrue(alg.methods().stream().noneMatch(m -> m.getName().equals("remove")));
+        assertNull(alg.apply(method(alg, "poll")));
+        assertEquals(true, alg.apply(method(alg, "offer"), 7));
+        assertEquals(7, alg.apply(method(alg, "poll")));
+    }
+
+    @Test
+    void testDefaultPolicyCallsTheRecordedMethod() {
+        // Given
+        A alg = new A("java.util.ArrayDeque", "offer", "remove");
+
+        // When / Then
+        assertEquals(EmptyPolicy.CATCH, alg.getEmptyPolicy());
+        assertNull(alg.apply(method(alg, "remove")));
+        assertEquals(true, alg.apply(method(alg, "offer"), 7));
+        assertEquals(7, alg.apply(method(alg, "remove")));
+    }
+
+    @Test
+    void testCatchPolicyMapsEmptyStackAndIndexOutOfBoundsToNull() {
+        // Given
+        A stack = new A("java.util.Stack", EmptyPolicy.CATCH, "pop", "peek");
+        A list = new A("java.util.ArrayList", EmptyPolicy.CATCH, "get");
+
+        // When / Then: EmptyStackException and IndexOutOfBoundsException are
+        // the empty result of state-dependent methods
+        assertNull(stack.apply(method(stack, "pop")));
+        assertNull(stack.apply(method(stack, "peek")));
+        assertNull(list.apply(method(list, "get"), 0));
+    }
+
+    @Test
+    void testErrorsAreNotSwallowed() {
+        // Given
+        A alg = new A(Overflowing.class.getName(), "push");
+
+        // When / Then: an Error from the object under test propagates
+        assertThrows(StackOverflowError.class, () -> alg.apply(method(alg, "push")));
+    }
+
+    public static class Overflowing {
+        public void push() {
+            throw new StackOverflowError();
+        }
+    }
+
+    @Test
+    void testCatchPolicyMapsNoSuchElementToNull() {
+        // Given
+        A alg = new A("java.util.ArrayDeque", EmptyPolicy.CATCH, "element");
+
+        // When / Then: element() itself runs and throws on the empty deque
+        assertEquals(EmptyPolicy.CATCH, alg.getEmptyPolicy());
+        assertNull(alg.apply(method(alg, "element")));
+    }
+
+    @Test
+    void testCatchPolicyMapsGetFirstAndGetLastToNull() {
+        // Given
+        A alg = new A("java.util.ArrayDeque", EmptyPolicy.CATCH, "getFirst", "getLast");
+
+        // When / Then: both throw on the empty deque and get the spec's empty result
+        assertTrue(method(alg, "getFirst").isStateDependent());
+        assertTrue(method(alg, "getLast").isStateDependent());
+        assertNull(alg.apply(method(alg, "getFirst")));
+        assertNull(alg.apply(method(alg, "getLast")));
+    }
+}
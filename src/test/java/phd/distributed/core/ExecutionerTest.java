@@ -0,0 +1,75 @@
+package phd.distributed.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import phd.distributed.api.A;
+import phd.distributed.api.Verdict;
+
+class ExecutionerTest {
+
+    @Test
+    void testRoundPhasingWithUnevenOpsRunsEveryOperation() {
+        // Given: 10 operations over 3 processes (4/3/3), in rounds with jitter
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(3, 10, queue, "queue");
+        exec.setRoundPhasing(true);
+        exec.setJitterMicros(5);
+
+        // When
+        exec.taskProducers();
+        boolean ok = exec.taskVerifiers();
+
+        // Then: processes that finish early leave the rounds; nothing blocks
+        assertEquals(20, exec.getTrace().count());
+        assertTrue(ok);
+        assertEquals(Verdict.LINEARIZABLE, exec.getVerdict());
+    }
+
+    @Test
+    void testQueueRunOnCasSnapIsLinearizable() {
+        // Given: a correct concurrent queue recorded with the single-CAS clock
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(4, 400, queue, "queue", "casSnap");
+
+        // When
+        exec.taskProducers();
+        boolean ok = exec.taskVerifiers();
+
+        // Then
+        assertEquals(800, exec.getTrace().count());
+        assertTrue(ok);
+        assertEquals(Verdict.LINEARIZABLE, exec.getVerdict());
+    }
+
+    @Test
+    void testVirtualThreadsRunThousandsOfProcesses() {
+        // Given: 2000 logical processes, one operation each
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(2000, 2000, queue, "queue");
+        exec.setVirtualThreads(true);
+
+        // When
+        exec.taskProducers();
+
+        // Then: an invocation and a return per process
+        assertEquals(4000, exec.getTrace().count());
+    }
+
+    @Test
+    void testRoundPhasingBeyondPhaserPartyLimit() {
+        // Given: more processes than a single Phaser can hold, in rounds on virtual threads
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(70_000, 140_000, queue, "queue");
+        exec.setVirtualThreads(true);
+        exec.setRoundPhasing(true);
+
+        // When
+        exec.taskProducers();
+
+        // Then: both rounds ran in every process
+        assertEquals(280_000, exec.getTrace().count());
+    }
+}
@@ -0,0 +1,109 @@
+package phd.distributed.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import phd.distributed.api.Verdict;
+import phd.distributed.snapshot.EventLog;
+import phd.distributed.snapshot.XeBuilder;
+import phd.distributed.verifier.SearchBudget;
+
+class HistoryShrinkerTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(HistoryShrinkerTest.class);
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    private static Verdict undo(IPersistentVector xe) {
+        return JitLinUndoChecker.check(xe, LOGGER, "queue", SearchBudget.unlimited());
+    }
+
+    @Test
+    void testShrinksToTheOffendingOperation() {
+        // Given: three threads of correct traffic plus a poll of a value never offered
+        EventLog log = new EventLog(3);
+        int c = 0;
+        for (int i = 0; i < 5; i++) {
+            log.append(0, EventLog.INVOKE, kw("offer"), i, ++c);
+            log.append(0, EventLog.RETURN, null, true, ++c);
+            log.append(1, EventLog.INVOKE, kw("poll"), null, ++c);
+            log.append(1, EventLog.RETURN, null, i, ++c);
+        }
+        log.append(2, EventLog.INVOKE, kw("poll"), null, ++c);
+        log.append(2, EventLog.RETURN, null, 42, ++c);
+
+        // When
+        HistoryShrinker shrinker = new HistoryShrinker(HistoryShrinkerTest::undo, 100);
+        IPersistentVector core = shrinker.shrink(XeBuilder.byCount(log));
+
+        // Then: only poll() -> 42 is left
+        assertEquals(2, core.count());
+        assertEquals(2L, ((Number) event(core, 1).get(kw("tid"))).longValue());
+        assertEquals(42L, event(core, 1).get(kw("res")));
+    }
+
+    @Test
+    void testKeepsTheWriterOfObservedValues() {
+        // Given: thread 0 offers 0..4, thread 1 polls them in order, and
+        // thread 2 (higher tid than the producer) polls 0 a second time
+        EventLog log = new EventLog(3);
+        int c = 0;
+        for (int i = 0; i < 5; i++) {
+            log.append(0, EventLog.INVOKE, kw("offer"), i, ++c);
+            log.append(0, EventLog.RETURN, null, true, ++c);
+        }
+        for (int i = 0; i < 5; i++) {
+            log.append(1, EventLog.INVOKE, kw("poll"), null, ++c);
+            log.append(1, EventLog.RETURN, null, i, ++c);
+        }
+        log.append(2, EventLog.INVOKE, kw("poll"), null, ++c);
+        log.append(2, EventLog.RETURN, null, 0, ++c);
+
+        // When
+        HistoryShrinker shrinker = new HistoryShrinker(HistoryShrinkerTest::undo, 200);
+        IPersistentVector core = shrinker.shrink(XeBuilder.byCount(log));
+
+        // Then: offer(0) and both polls of 0 survive, not a lone correct poll
+        assertEquals(6, core.count());
+        assertEquals(Verdict.NOT_LINEARIZABLE, undo(core));
+        Map<Long, Object> resByTid = new HashMap<>();
+        long offers = 0;
+        for (int i = 0; i < core.count(); i++) {
+            Map<?, ?> ev = event(core, i);
+            long tid = ((Number) ev.get(kw("tid"))).longValue();
+            if (kw("return").equals(ev.get(kw("type"))) && tid != 0) {
+                resByTid.put(tid, ev.get(kw("res")));
+            } else if (kw("offer").equals(ev.get(kw("op")))) {
+                offers++;
+                assertEquals(0L, ev.get(kw("arg")));
+            }
+        }
+        assertEquals(1, offers);
+        assertEquals(Map.of(1L, 0L, 2L, 0L), resByTid);
+    }
+
+    private static Map<?, ?> event(IPersistentVector xe, int i) {
+        return (Map<?, ?>) xe.nth(i);
+    }
+
+    @Test
+    void testLinearizableHistoryHasNoCore() {
+        // Given
+        EventLog log = new EventLog(1);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+
+        // Then
+        assertNull(new HistoryShrinker(HistoryShrinkerTest::undo, 100).shrink(XeBuilder.byCount(log)));
+    }
+}
@@ -0,0 +1,103 @@
+package phd.distributed.core;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import phd.distributed.api.Verdict;
+import phd.distributed.snapshot.EventLog;
+import phd.distributed.snapshot.XeBuilder;
+import phd.distributed.verifier.SearchBudget;
+
+class IncrementalLinCheckerTest {
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    @Test
+    void testStateCarriesAcrossQuiescentCuts() {
+        // Given: offer(1) and offer(2) overlap, then two sequential polls
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(1, EventLog.INVOKE, kw("offer"), 2, 2);
+        log.append(0, EventLog.RETURN, null, true, 3);
+        log.append(1, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 5);
+        log.append(0, EventLog.RETURN, null, 2, 6);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 7);
+        log.append(1, EventLog.RETURN, null, 1, 8);
+
+        // When
+        IncrementalLinChecker checker = new IncrementalLinChecker("queue");
+        checker.acceptAll(XeBuilder.byCount(log));
+
+        // Then: both orders of the offers survive the first cut; polls pick one
+        assertEquals(Verdict.LINEARIZABLE, checker.finish());
+        assertEquals(3, checker.cuts());
+        assertEquals(0, checker.windowSize());
+        assertEquals(4, checker.maxWindowSize());
+    }
+
+    @Test
+    void testViolationInLaterWindow() {
+        // Given: offer(1) poll()->1 and then a second poll()->1
+        EventLog log = new EventLog(1);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 3);
+        log.append(0, EventLog.RETURN, null, 1, 4);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 5);
+        log.append(0, EventLog.RETURN, null, 1, 6);
+
+        // When
+        IncrementalLinChecker checker = new IncrementalLinChecker("queue");
+        checker.acceptAll(XeBuilder.byCount(log));
+
+        // Then
+        assertEquals(Verdict.NOT_LINEARIZABLE, checker.verdict());
+        assertEquals(Verdict.NOT_LINEARIZABLE, checker.finish());
+    }
+
+    @Test
+    void testFailedWindowShrinksFromTheStatesBeforeIt() {
+        // Given: the queue holds [1 2]; then poll()->nil (the bug) overlaps poll()->1
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 2, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 5);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 6);
+        log.append(1, EventLog.RETURN, null, 1, 7);
+        log.append(0, EventLog.RETURN, null, null, 8);
+        IncrementalLinChecker checker = new IncrementalLinChecker("queue");
+        checker.acceptAll(XeBuilder.byCount(log));
+        assertEquals(Verdict.NOT_LINEARIZABLE, checker.finish());
+        assertNull(new IncrementalLinChecker("queue").failedStates());
+
+        // When: the failing window is shrunk from the states it was checked from
+        IPersistentVector window = checker.failedWindow();
+        assertEquals(4, window.count());
+        assertNotNull(checker.failedStates());
+        HistoryShrinker shrinker = new HistoryShrinker(sub -> {
+            IncrementalLinChecker probe =
+                new IncrementalLinChecker("queue", 0, new SearchBudget(0, null), checker.failedStates());
+            probe.acceptAll(sub);
+            return probe.finish();
+        }, 100);
+        IPersistentVector core = shrinker.shrink(window);
+
+        // Then: the core is the empty poll, not the correct poll()->1
+        assertNotNull(core);
+        assertEquals(2, core.count());
+        for (int i = 0; i < core.count(); i++) {
+            assertEquals(0, ((Number) ((Map<?, ?>) core.nth(i)).get(kw("tid"))).intValue());
+        }
+    }
+}
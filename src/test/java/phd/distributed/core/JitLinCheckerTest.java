@@ -0,0 +1,247 @@
+package phd.distributed.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.lang.Keyword;
+import phd.distributed.api.Verdict;
+import phd.distributed.snapshot.EventLog;
+import phd.distributed.snapshot.XeBuilder;
+import phd.distributed.verifier.SearchBudget;
+
+class JitLinCheckerTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(JitLinCheckerTest.class);
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    @Test
+    void testLongHistoryDoesNotOverflowStack() {
+        // Given: 50k sequential queue operations, i.e. a 50k-deep linearization
+        int n = 50_000;
+        EventLog log = new EventLog(1);
+        int c = 0;
+        for (int i = 0; i < n / 2; i++) {
+            log.append(0, EventLog.INVOKE, kw("offer"), i, ++c);
+            log.append(0, EventLog.RETURN, null, true, ++c);
+            log.append(0, EventLog.INVOKE, kw("poll"), null, ++c);
+            log.append(0, EventLog.RETURN, null, i, ++c);
+        }
+
+        // When
+        Verdict verdict = JitLinChecker.check(XeBuilder.byCount(log), LOGGER, "queue",
+                                              false, SearchBudget.unlimited());
+
+        // Then
+        assertEquals(Verdict.LINEARIZABLE, verdict);
+    }
+
+    @Test
+    void testWitnessOrdersOverlappingOperations() {
+        // Given: poll returns 1 while offer(1) is still pending
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 2);
+        log.append(1, EventLog.RETURN, null, 1, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+
+        // When
+        CheckResult result = JitLinChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "queue",
+                                                            false, SearchBudget.unlimited());
+
+        // Then: offer (invoked at X_E position 0) is linearized before poll (position 1)
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertArrayEquals(new int[] {0, 1}, result.witness());
+    }
+
+    @Test
+    void testWitnessMergesPerKeyLinearizations() {
+        // Given: a set history whose keys are checked separately
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("add"), 1, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(1, EventLog.INVOKE, kw("add"), 2, 3);
+        log.append(1, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("contains"), 2, 5);
+        log.append(0, EventLog.RETURN, null, true, 6);
+
+        // When
+        CheckResult result = JitLinChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "set",
+                                                            false, SearchBudget.unlimited());
+
+        // Then: the merged order respects real time
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertArrayEquals(new int[] {0, 2, 4}, result.witness());
+    }
+
+    @Test
+    void testParallelSearchReturnsWitness() {
+        // Given: three overlapping offers, then polls that fix their order as 2, 1, 3
+        EventLog log = new EventLog(3);
+        int c = 0;
+        for (int t = 0; t < 3; t++) {
+            log.append(t, EventLog.INVOKE, kw("offer"), t + 1, ++c);
+        }
+        for (int t = 0; t < 3; t++) {
+            log.append(t, EventLog.RETURN, null, true, ++c);
+        }
+        int[] polled = {2, 1, 3};
+        for (int t = 0; t < 3; t++) {
+            log.append(t, EventLog.INVOKE, kw("poll"), null, ++c);
+            log.append(t, EventLog.RETURN, null, polled[t], ++c);
+        }
+
+        // When
+        CheckResult result = JitLinChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "queue",
+                                                            true, SearchBudget.unlimited());
+
+        // Then: offer(2), offer(1), offer(3), then the polls
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertArrayEquals(new int[] {1, 0, 2, 6, 8, 10}, result.witness());
+    }
+
+    @Test
+    void testParallelSearchRejectsViolation() {
+        // Given: two overlapping offers, then the same value polled twice
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(1, EventLog.INVOKE, kw("offer"), 2, 2);
+        log.append(0, EventLog.RETURN, null, true, 3);
+        log.append(1, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 5);
+        log.append(0, EventLog.RETURN, null, 2, 6);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 7);
+        log.append(1, EventLog.RETURN, null, 2, 8);
+        SearchBudget budget = SearchBudget.unlimited();
+
+        // When: every forked branch fails
+        Verdict verdict = JitLinChecker.check(XeBuilder.byCount(log), LOGGER, "queue", true, budget);
+
+        // Then: a refutation, not an abandoned search
+        assertEquals(Verdict.NOT_LINEARIZABLE, verdict);
+        assertEquals(SearchBudget.Reason.NONE, budget.reason());
+    }
+
+    @Test
+    void testOneFailingKeyFailsTheWholeHistory() {
+        // Given: key 1 is fine, but contains(2) sees 2 before anyone adds it
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("add"), 1, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(1, EventLog.INVOKE, kw("contains"), 2, 3);
+        log.append(1, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("contains"), 1, 5);
+        log.append(0, EventLog.RETURN, null, true, 6);
+
+        // When
+        Verdict verdict = JitLinChecker.check(XeBuilder.byCount(log), LOGGER, "set",
+                                              false, SearchBudget.unlimited());
+
+        // Then
+        assertEquals(Verdict.NOT_LINEARIZABLE, verdict);
+    }
+
+    @Test
+    void testMergedWitnessFollowsRealTimeAcrossKeys() {
+        // Given: key 2 is used before key 1, so the per-key chains cannot simply be concatenated
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("get"), "b", 1);
+        log.append(0, EventLog.RETURN, null, null, 2);
+        log.append(1, EventLog.INVOKE, kw("put"), new Object[] {"b", "x"}, 3);
+        log.append(1, EventLog.RETURN, null, null, 4);
+        log.append(0, EventLog.INVOKE, kw("put"), new Object[] {"a", "y"}, 5);
+        log.append(0, EventLog.RETURN, null, null, 6);
+        log.append(1, EventLog.INVOKE, kw("get"), "a", 7);
+        log.append(1, EventLog.RETURN, null, "y", 8);
+
+        // When
+        CheckResult result = JitLinChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "map",
+                                                            false, SearchBudget.unlimited());
+
+        // Then
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertArrayEquals(new int[] {0, 2, 4, 6}, result.witness());
+    }
+
+    @Test
+    void testLargePerKeyHistoryIsCheckedInParallel() {
+        // Given: enough operations to spread the keys over the pool
+        EventLog log = roundsOfSetOps(ROUNDS, -1);
+
+        // When
+        CheckResult result = JitLinChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "set",
+                                                            false, SearchBudget.unlimited());
+
+        // Then: one operation per invocation, rounds in real-time order
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertEquals(ROUNDS * THREADS, result.witness().length);
+        for (int k = 1; k < result.witness().length; k++) {
+            int prevRound = result.witness()[k - 1] / (2 * THREADS);
+            int round = result.witness()[k] / (2 * THREADS);
+            assertTrue(prevRound <= round, "witness goes back from round " + prevRound + " to " + round);
+        }
+    }
+
+    @Test
+    void testLargePerKeyViolationIsNotReportedAsUnknown() {
+        // Given: a single wrong result in the first round; the other keys are still searched
+        EventLog log = roundsOfSetOps(ROUNDS, 0);
+        SearchBudget budget = SearchBudget.unlimited();
+
+        // When
+        Verdict verdict = JitLinChecker.check(XeBuilder.byCount(log), LOGGER, "set", false, budget);
+
+        // Then: stopping the other keys must not exhaust the shared budget
+        assertEquals(Verdict.NOT_LINEARIZABLE, verdict);
+        assertEquals(SearchBudget.Reason.NONE, budget.reason());
+    }
+
+    @Test
+    void testLargePerKeyHistoryOverBudgetIsUnknown() {
+        // Given: a linearizable history and too few nodes to check every key
+        EventLog log = roundsOfSetOps(ROUNDS, -1);
+        SearchBudget budget = new SearchBudget(10, null);
+
+        // When
+        Verdict verdict = JitLinChecker.check(XeBuilder.byCount(log), LOGGER, "set", false, budget);
+
+        // Then: the aborted keys are not a violation
+        assertEquals(Verdict.UNKNOWN, verdict);
+        assertEquals(SearchBudget.Reason.NODES, budget.reason());
+    }
+
+    private static final int THREADS = 4;
+    private static final int KEYS = 16;
+    private static final int ROUNDS = 80;
+
+    /**
+     * Set history in rounds: in each round every thread runs one overlapping
+     * operation on its own key, cycling add / contains / remove / contains.
+     * The result of the operation of thread 0 in round badRound is flipped.
+     */
+    private static EventLog roundsOfSetOps(int rounds, int badRound) {
+        String[] ops = {"add", "contains", "remove", "contains"};
+        boolean[] results = {true, true, true, false};
+        EventLog log = new EventLog(THREADS);
+        int[] uses = new int[KEYS];
+        int c = 0;
+        for (int r = 0; r < rounds; r++) {
+            int[] key = new int[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                key[t] = (r * THREADS + t) % KEYS;
+                log.append(t, EventLog.INVOKE, kw(ops[uses[key[t]] % ops.length]), key[t], ++c);
+            }
+            for (int t = 0; t < THREADS; t++) {
+                boolean res = results[uses[key[t]]++ % results.length];
+                log.append(t, EventLog.RETURN, null, (r == badRound && t == 0) ? !res : res, ++c);
+            }
+        }
+        return log;
+    }
+}
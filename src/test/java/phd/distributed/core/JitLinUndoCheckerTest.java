@@ -0,0 +1,119 @@
+package phd.distributed.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import phd.distributed.api.Verdict;
+import phd.distributed.snapshot.EventLog;
+import phd.distributed.snapshot.XeBuilder;
+import phd.distributed.verifier.SearchBudget;
+
+class JitLinUndoCheckerTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(JitLinUndoCheckerTest.class);
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    @Test
+    void testOverlappingQueueOperationsAreLinearizable() {
+        // Given: poll returns 1 while offer(1) is still pending
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 2);
+        log.append(1, EventLog.RETURN, null, 1, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+
+        // Then: offer (X_E position 0) is linearized before poll (position 1)
+        CheckResult result = JitLinUndoChecker.checkWithWitness(XeBuilder.byCount(log), LOGGER, "queue",
+                                                                SearchBudget.unlimited());
+        assertEquals(Verdict.LINEARIZABLE, result.verdict());
+        assertArrayEquals(new int[] {0, 1}, result.witness());
+    }
+
+    @Test
+    void testPollBeforeOfferIsNotLinearizable() {
+        // Given: poll returns 1 and only afterwards offer(1) is invoked
+        EventLog log = new EventLog(2);
+        log.append(1, EventLog.INVOKE, kw("poll"), null, 1);
+        log.append(1, EventLog.RETURN, null, 1, 2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+
+        // Then
+        assertFalse(JitLinUndoChecker.checkLinearizable(XeBuilder.byCount(log), LOGGER, "queue"));
+    }
+
+    @Test
+    void testMapPutPairStringAndPendingOperation() {
+        // Given: put([k, v]) then get(k), plus a put that never returns
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("put"), new Object[] {"k", "v"}, 1);
+        log.append(0, EventLog.RETURN, null, null, 2);
+        log.append(1, EventLog.INVOKE, kw("put"), new Object[] {"k", "w"}, 3);
+        log.append(0, EventLog.INVOKE, kw("get"), "k", 4);
+        log.append(0, EventLog.RETURN, null, "v", 5);
+
+        // Then
+        assertTrue(JitLinUndoChecker.checkLinearizable(XeBuilder.byCount(log), LOGGER, "map"));
+    }
+
+    @Test
+    void testPriorityQueuePollsTheMinimum() {
+        // Given: offer(3), offer(1), then poll returns 1 and poll returns 3
+        EventLog log = new EventLog(1);
+        log.append(0, EventLog.INVOKE, kw("offer"), 3, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 5);
+        log.append(0, EventLog.RETURN, null, 1, 6);
+        log.append(0, EventLog.INVOKE, kw("poll"), null, 7);
+        log.append(0, EventLog.RETURN, null, 3, 8);
+
+        // Then: both checkers accept it as a priority queue, not as a FIFO queue
+        IPersistentVector xe = XeBuilder.byCount(log);
+        assertTrue(JitLinUndoChecker.checkLinearizable(xe, LOGGER, "priority-queue"));
+        assertEquals(Verdict.LINEARIZABLE,
+                     JitLinChecker.check(xe, LOGGER, "priority-queue", false, SearchBudget.unlimited()));
+        assertFalse(JitLinUndoChecker.checkLinearizable(xe, LOGGER, "queue"));
+    }
+
+    @Test
+    void testSetRejectsDoubleSuccessfulAdd() {
+        // Given: two sequential add(5) that both report true
+        EventLog log = new EventLog(1);
+        log.append(0, EventLog.INVOKE, kw("add"), 5, 1);
+        log.append(0, EventLog.RETURN, null, true, 2);
+        log.append(0, EventLog.INVOKE, kw("add"), 5, 3);
+        log.append(0, EventLog.RETURN, null, true, 4);
+
+        // Then
+        assertFalse(JitLinUndoChecker.checkLinearizable(XeBuilder.byCount(log), LOGGER, "set"));
+    }
+
+    @Test
+    void testExhaustedBudgetIsUnknown() {
+        // Given: a linearizable history and a budget of a single node
+        EventLog log = new EventLog(2);
+        log.append(0, EventLog.INVOKE, kw("offer"), 1, 1);
+        log.append(1, EventLog.INVOKE, kw("offer"), 2, 2);
+        log.append(0, EventLog.RETURN, null, true, 3);
+        log.append(1, EventLog.RETURN, null, true, 4);
+
+        // When
+        Verdict verdict = JitLinUndoChecker.check(XeBuilder.byCount(log), LOGGER, "queue",
+                                                  new SearchBudget(1, null));
+
+        // Then: no verdict, rather than a violation
+        assertEquals(Verdict.UNKNOWN, verdict);
+    }
+}
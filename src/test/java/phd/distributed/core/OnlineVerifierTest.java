@@ -0,0 +1,118 @@
+package phd.distributed.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import phd.distributed.api.A;
+import phd.distributed.api.Verdict;
+import phd.distributed.datamodel.MethodInf;
+import phd.distributed.datamodel.OperationCall;
+
+class OnlineVerifierTest {
+
+    private static Verdict batchVerdict(Executioner exec) {
+        Verifier batch = new Verifier();
+        batch.verifyDirectTrace(exec.getTrace(), "queue");
+        return batch.getLastVerdict();
+    }
+
+    private static MethodInf method(A alg, String name) {
+        return alg.methods().stream().filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testOnlineVerdictMatchesBatchOnCorrectQueue() {
+        // Given: a correct queue, checked while four producers run
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(4, 2000, queue, "queue");
+        exec.setOnlineVerification(true);
+        exec.setOnlineRetainHistory(true);
+
+        // When
+        exec.taskProducers();
+        boolean ok = exec.taskVerifiers();
+
+        // Then
+        assertTrue(ok);
+        assertEquals(Verdict.LINEARIZABLE, exec.getVerdict());
+        assertEquals(exec.getVerdict(), batchVerdict(exec));
+    }
+
+    @Test
+    void testOnlineVerdictMatchesBatchOnBrokenQueue() {
+        // Given: offers alternate between two inner queues, so the second poll skips a value
+        A queue = new A("phd.distributed.verifier.NonLinearizableQueue", "offer", "poll");
+        MethodInf offer = method(queue, "offer");
+        MethodInf poll = method(queue, "poll");
+        List<OperationCall> ops = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ops.add(new OperationCall(3 * i, offer));
+            ops.add(new OperationCall(3 * i + 1, offer));
+            ops.add(new OperationCall(3 * i + 2, offer));
+            ops.add(new OperationCall(null, poll));
+            ops.add(new OperationCall(null, poll));
+            ops.add(new OperationCall(null, poll));
+        }
+        Executioner exec = new Executioner(1, ops.size(), queue, "queue");
+        exec.setOnlineVerification(true);
+        exec.setOnlineRetainHistory(true);
+
+        // When
+        exec.taskProducersSeed(ops);
+        boolean ok = exec.taskVerifiers();
+
+        // Then
+        assertFalse(ok);
+        assertEquals(Verdict.NOT_LINEARIZABLE, exec.getVerdict());
+        assertEquals(exec.getVerdict(), batchVerdict(exec));
+    }
+
+    @Test
+    void testReleasedHistoryKeepsFailingWindowForShrinking() {
+        // Given: the broken queue, checked online without retaining the history
+        A queue = new A("phd.distributed.verifier.NonLinearizableQueue", "offer", "poll");
+        MethodInf offer = method(queue, "offer");
+        MethodInf poll = method(queue, "poll");
+        List<OperationCall> ops = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ops.add(new OperationCall(3 * i, offer));
+            ops.add(new OperationCall(3 * i + 1, offer));
+            ops.add(new OperationCall(3 * i + 2, offer));
+            ops.add(new OperationCall(null, poll));
+            ops.add(new OperationCall(null, poll));
+            ops.add(new OperationCall(null, poll));
+        }
+        Executioner exec = new Executioner(1, ops.size(), queue, "queue");
+        exec.setOnlineVerification(true);
+        exec.setOnlineRetainHistory(false);
+
+        // When
+        exec.taskProducersSeed(ops);
+        boolean ok = exec.taskVerifiers();
+
+        // Then: the failing window is still there to shrink
+        assertFalse(ok);
+        assertEquals(Verdict.NOT_LINEARIZABLE, exec.getVerdict());
+        assertNotNull(exec.shrinkViolation(50));
+    }
+
+    @Test
+    void testSecondRunWithoutVerifyingFailsFast() {
+        // Given: a run whose online check was never finished
+        A queue = new A("java.util.concurrent.ConcurrentLinkedQueue", "offer", "poll");
+        Executioner exec = new Executioner(2, 20, queue, "queue");
+        exec.setOnlineVerification(true);
+        exec.taskProducers();
+
+        // When / Then: the running consumer is not silently replaced
+        assertThrows(IllegalStateException.class, exec::taskProducers);
+        assertTrue(exec.taskVerifiers());
+    }
+}
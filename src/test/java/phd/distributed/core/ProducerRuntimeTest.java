@@ -0,0 +1,109 @@
+package phd.distributed.core;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+@Tag("fast")
+class ProducerRuntimeTest {
+
+    @Test
+    void testSessionsReuseTheSameThreads() {
+        // Given: a runtime with room for four producers
+        ProducerRuntime runtime = new ProducerRuntime(4);
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        AtomicIntegerArray runs = new AtomicIntegerArray(4);
+
+        // When: several sessions run on it
+        try {
+            for (int s = 0; s < 5; s++) {
+                runtime.run(4, pid -> {
+                    names.add(Thread.currentThread().getName());
+                    runs.incrementAndGet(pid);
+                }, 10, TimeUnit.SECONDS);
+            }
+        } finally {
+            runtime.close();
+        }
+
+        // Then: every pid ran in every session, always on the pool threads
+        for (int pid = 0; pid < 4; pid++) {
+            assertEquals(5, runs.get(pid));
+        }
+        assertTrue(names.size() <= 4);
+        assertTrue(names.stream().allMatch(n -> n.startsWith("producer-")));
+    }
+
+    @Test
+    void testFailuresAreReportedByPidAndPoolGrows() {
+        // Given: a runtime smaller than the session
+        ProducerRuntime runtime = new ProducerRuntime(1);
+
+        // When: producer 2 of 3 fails
+        Throwable[] failures;
+        try {
+            failures = runtime.run(3, pid -> {
+                if (pid == 2) {
+                    throw new IllegalStateException("boom");
+                }
+            }, 10, TimeUnit.SECONDS);
+            // Then: the pool grew to fit the session
+            assertEquals(3, runtime.size());
+        } finally {
+            runtime.close();
+        }
+
+        assertNull(failures[0]);
+        assertNull(failures[1]);
+        assertEquals("boom", failures[2].getMessage());
+    }
+
+    @Test
+    void testInterruptedSessionWaitsForRunningProducers() throws InterruptedException {
+        // Given: producers that keep running for a while after being interrupted
+        ProducerRuntime runtime = new ProducerRuntime(2);
+        AtomicIntegerArray finished = new AtomicIntegerArray(2);
+        AtomicIntegerArray finishedAtReturn = new AtomicIntegerArray(2);
+        boolean[] interruptedAtReturn = new boolean[1];
+        CountDownLatch running = new CountDownLatch(2);
+        Thread caller = new Thread(() -> {
+            runtime.run(2, pid -> {
+                running.countDown();
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                while (System.nanoTime() - end < 0) {
+                    Thread.onSpinWait();
+                }
+                finished.set(pid, 1);
+            }, 10, TimeUnit.SECONDS);
+            for (int pid = 0; pid < 2; pid++) {
+                finishedAtReturn.set(pid, finished.get(pid));
+            }
+            interruptedAtReturn[0] = Thread.currentThread().isInterrupted();
+        });
+
+        // When: the caller is interrupted mid-session
+        try {
+            caller.start();
+            running.await();
+            caller.interrupt();
+            caller.join();
+        } finally {
+            runtime.close();
+        }
+
+        // Then: run() only returned once no producer could still append
+        assertEquals(1, finishedAtReturn.get(0));
+        assertEquals(1, finishedAtReturn.get(1));
+        assertTrue(interruptedAtReturn[0]);
+    }
+}
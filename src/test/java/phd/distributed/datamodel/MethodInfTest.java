@@ -94,6 +94,16 @@ class MethodInfTest {
         assertEquals(String.class, substringMethodInf.getTypeReturn());
     }
 
+    @Test
+    void testGetKeywordIsResolvedOnce() {
+        // Given
+        MethodInf methodInf = new MethodInf(stringSubstringMethod);
+
+        // Then
+        assertEquals("substring", methodInf.getKeyword().getName());
+        assertTrue(methodInf.getKeyword() == methodInf.getKeyword());
+    }
+
     @Test
     void testToString() {
         // Given
@@ -133,4 +143,28 @@ class MethodInfTest {
         assertEquals(0, methodInf.getParameterTypes().length);
         assertEquals(String.class, methodInf.getTypeReturn());
     }
+
+    @Test
+    void testInvokeUsesSpecializedHandles() throws Throwable {
+        // Given
+        MethodInf length = new MethodInf(stringLengthMethod);
+        MethodInf substring = new MethodInf(stringSubstringMethod);
+
+        // When / Then: arguments are unboxed and results boxed by the handle
+        assertEquals(5, length.invoke("hello"));
+        assertEquals("ell", substring.invoke("hello", 1, 4));
+        assertThrows(StringIndexOutOfBoundsException.class, () -> substring.invoke("hello", 4, 1));
+    }
+
+    @Test
+    void testStateDependentFlagIsPrecomputed() throws NoSuchMethodException {
+        // When
+        MethodInf poll = new MethodInf(java.util.ArrayDeque.class.getMethod("poll"));
+        MethodInf offer = new MethodInf(java.util.ArrayDeque.class.getMethod("offer", Object.class));
+
+        // Then
+        assertTrue(poll.isStateDependent());
+        assertFalse(offer.isStateDependent());
+        assertEquals(1, offer.getArity());
+    }
 }
@@ -0,0 +1,119 @@
+package phd.distributed.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.ISeq;
+import clojure.lang.Keyword;
+import phd.distributed.datamodel.MethodInf;
+import phd.distributed.datamodel.OperationCall;
+
+class CollectCASIncTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS = 5000;
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    @Test
+    void testStampsIncreasePerThreadAndOrderEventsUniquely() throws InterruptedException {
+        // Given: eight threads racing on the single-CAS clock
+        CollectCASInc snap = new CollectCASInc(THREADS);
+        int[][] stamps = new int[THREADS][OPS];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int tid = t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPS; i++) {
+                    stamps[tid][i] = snap.nextCount();
+                }
+            }));
+        }
+
+        // When
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // Then: strictly increasing per thread, so (count, tid) keys are unique
+        // and sorting by them keeps program order
+        Set<Long> keys = new HashSet<>();
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < OPS; i++) {
+                if (i > 0) {
+                    assertTrue(stamps[t][i - 1] < stamps[t][i],
+                               "thread " + t + " stamp " + i + " did not increase");
+                }
+                assertTrue(keys.add(((long) stamps[t][i] << 32) | t));
+                assertTrue(stamps[t][i] <= snap.currentCount());
+            }
+        }
+        // An event that starts after all of them gets a later stamp
+        int last = snap.currentCount();
+        assertTrue(snap.nextCount() > last);
+    }
+
+    @Test
+    void testXeKeepsProgramOrderOfEveryThread() throws Exception {
+        // Given: concurrent invoke/return pairs recorded through the snapshot API
+        CollectCASInc snap = new CollectCASInc(THREADS);
+        MethodInf offer = new MethodInf(ConcurrentLinkedQueue.class.getMethod("offer", Object.class));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int tid = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < OPS / 10; i++) {
+                    snap.write(tid, new OperationCall(i, offer));
+                    snap.snapshot(tid, true);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        // When
+        IPersistentVector xe = snap.buildXE();
+
+        // Then: every thread alternates invoke/return with increasing op-ids
+        assertEquals(2 * THREADS * (OPS / 10), xe.count());
+        long[] lastOp = new long[THREADS];
+        boolean[] pending = new boolean[THREADS];
+        Arrays.fill(lastOp, -1L);
+        for (ISeq s = xe.seq(); s != null; s = s.next()) {
+            Map<?, ?> ev = (Map<?, ?>) s.first();
+            int tid = ((Number) ev.get(kw("tid"))).intValue();
+            long opId = ((Number) ev.get(kw("op-id"))).longValue();
+            if (kw("invoke").equals(ev.get(kw("type")))) {
+                assertTrue(!pending[tid] && opId > lastOp[tid], "invoke out of order on thread " + tid);
+                lastOp[tid] = opId;
+                pending[tid] = true;
+            } else {
+                assertTrue(pending[tid] && opId == lastOp[tid], "return out of order on thread " + tid);
+                pending[tid] = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package phd.distributed.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import phd.distributed.datamodel.MethodInf;
+import phd.distributed.datamodel.OperationCall;
+
+class CollectRAWTest {
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    /** Views recorded by the returns of thread tid, in program order. */
+    private static List<int[]> views(CollectRAW snap, int tid) {
+        List<int[]> out = new ArrayList<>();
+        EventLog.Cursor cur = snap.log().cursor(tid);
+        while (cur.next()) {
+            if (cur.type() == EventLog.RETURN) {
+                out.add((int[]) cur.op());
+            }
+        }
+        return out;
+    }
+
+    /** X_E position of the invocation or return of operation k (0-based) of thread tid. */
+    private static int position(IPersistentVector xe, int tid, int k, String type) {
+        long opId = Snapshot.packOpId(tid, k + 1);
+        for (int i = 0; i < xe.count(); i++) {
+            Map<?, ?> ev = (Map<?, ?>) xe.nth(i);
+            if (kw(type).equals(ev.get(kw("type"))) && ((Number) ev.get(kw("op-id"))).longValue() == opId) {
+                return i;
+            }
+        }
+        throw new AssertionError("no " + type + " of op " + k + " of thread " + tid);
+    }
+
+    @Test
+    void testOverlappingHistoryRecordsCountViewsAndOrdersXe() throws Exception {
+        // Given: offer(1) and offer(2) overlap, then each thread polls in turn
+        CollectRAW snap = new CollectRAW(2);
+        MethodInf offer = new MethodInf(ConcurrentLinkedQueue.class.getMethod("offer", Object.class));
+        MethodInf poll = new MethodInf(ConcurrentLinkedQueue.class.getMethod("poll"));
+        snap.write(0, new OperationCall(1, offer));
+        snap.write(1, new OperationCall(2, offer));
+        snap.snapshot(0, true);
+        snap.snapshot(1, true);
+        snap.write(0, new OperationCall(null, poll));
+        snap.snapshot(0, 1);
+        snap.write(1, new OperationCall(null, poll));
+        snap.snapshot(1, 2);
+
+        // When
+        IPersistentVector xe = snap.buildXE();
+
+        // Then: each return recorded the invocation count of every thread
+        List<int[]> v0 = views(snap, 0);
+        List<int[]> v1 = views(snap, 1);
+        assertArrayEquals(new int[] {1, 1}, v0.get(0));
+        assertArrayEquals(new int[] {2, 1}, v0.get(1));
+        assertArrayEquals(new int[] {1, 1}, v1.get(0));
+        assertArrayEquals(new int[] {2, 2}, v1.get(1));
+
+        // and X_E follows those views
+        assertEquals(8, xe.count());
+        for (int t = 0; t < 2; t++) {
+            assertTrue(position(xe, t, 0, "invoke") < position(xe, t, 0, "return"));
+            assertTrue(position(xe, t, 0, "return") < position(xe, t, 1, "invoke"));
+            assertTrue(position(xe, t, 1, "invoke") < position(xe, t, 1, "return"));
+        }
+        // the first returns saw both offers
+        assertTrue(position(xe, 1, 0, "invoke") < position(xe, 0, 0, "return"));
+        assertTrue(position(xe, 0, 0, "invoke") < position(xe, 1, 0, "return"));
+        // thread 0's poll returned before thread 1's poll was invoked
+        assertTrue(position(xe, 0, 1, "return") < position(xe, 1, 1, "invoke"));
+        Map<?, ?> offerEvent = (Map<?, ?>) xe.nth(position(xe, 1, 0, "invoke"));
+        assertEquals(kw("offer"), offerEvent.get(kw("op")));
+        assertEquals(2L, offerEvent.get(kw("arg")));
+    }
+}
@@ -0,0 +1,70 @@
+package phd.distributed.snapshot;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTest {
+
+    @Test
+    void testAppendAcrossChunkBoundary() {
+        // Given
+        EventLog log = new EventLog(2);
+        int n = EventLog.CHUNK_SIZE * 2 + 7;
+
+        // When
+        for (int i = 0; i < n; i++) {
+            byte type = (i % 2 == 0) ? EventLog.INVOKE : EventLog.RETURN;
+            log.append(1, type, "op", i, i + 1);
+        }
+
+        // Then
+        assertEquals(0, log.size(0));
+        assertEquals(n, log.size(1));
+        assertEquals(n, log.totalSize());
+
+        EventLog.Cursor cur = log.cursor(1);
+        for (int i = 0; i < n; i++) {
+            assertTrue(cur.next());
+            assertEquals(i + 1, cur.count());
+            assertEquals(i, cur.value());
+            assertEquals((i % 2 == 0) ? EventLog.INVOKE : EventLog.RETURN, cur.type());
+        }
+        assertFalse(cur.next());
+    }
+
+    @Test
+    void testEmptySlotCursor() {
+        // Given
+        EventLog log = new EventLog(3);
+
+        // Then
+        assertFalse(log.cursor(2).next());
+        assertEquals(0, log.totalSize());
+    }
+
+    @Test
+    void testSparseSlotsAreAllocatedOnFirstAppend() {
+        // Given: a log sized for many logical processes, a cursor opened early
+        EventLog log = new EventLog(100_000);
+        EventLog.Cursor early = log.cursor(99_999);
+
+        // When: only two of them record events, one past several chunks
+        int n = EventLog.CHUNK_SIZE + 3;
+        for (int i = 0; i < n; i++) {
+            log.append(99_999, EventLog.INVOKE, "op", i, i + 1);
+        }
+        log.append(7, EventLog.RETURN, null, "x", n + 1);
+
+        // Then
+        assertEquals(2, log.activeThreads());
+        assertEquals(n + 1, log.totalSize());
+        assertEquals(0, log.size(8));
+        for (int i = 0; i < n; i++) {
+            assertTrue(early.next());
+            assertEquals(i, early.value());
+        }
+        assertFalse(early.next());
+    }
+}
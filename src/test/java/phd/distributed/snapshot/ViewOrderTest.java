@@ -0,0 +1,124 @@
+package phd.distributed.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewOrderTest {
+
+    @Test
+    void testSequentialHistoryKeepsProgramOrder() {
+        // Given: one thread, two completed operations
+        int[] invCounts = {2};
+        int[][][] views = {{{1}, {2}}};
+
+        // When
+        ViewOrder order = ViewOrder.of(invCounts, views);
+
+        // Then: inv0 ret0 inv1 ret1
+        assertEquals(4, order.size());
+        byte[] expected = {EventLog.INVOKE, EventLog.RETURN, EventLog.INVOKE, EventLog.RETURN};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i], order.type(i));
+            assertEquals(i / 2, order.index(i));
+        }
+    }
+
+    @Test
+    void testOrderRespectsAllQuadraticEdges() {
+        Random rnd = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            // Given: a random RAW execution with atomic collects
+            int p = 1 + rnd.nextInt(4);
+            int[] invCounts = new int[p];
+            List<List<int[]>> viewLists = new ArrayList<>();
+            boolean[] pending = new boolean[p];
+            for (int t = 0; t < p; t++) viewLists.add(new ArrayList<>());
+            int steps = rnd.nextInt(40);
+            for (int s = 0; s < steps; s++) {
+                int t = rnd.nextInt(p);
+                if (pending[t]) {
+                    viewLists.get(t).add(invCounts.clone());
+                    pending[t] = false;
+                } else {
+                    invCounts[t]++;
+                    pending[t] = true;
+                }
+            }
+            int[][][] views = new int[p][][];
+            for (int t = 0; t < p; t++) views[t] = viewLists.get(t).toArray(new int[0][]);
+
+            // When
+            ViewOrder order = ViewOrder.of(invCounts, views);
+
+            // Then
+            Map<Long, Integer> pos = new HashMap<>();
+            for (int i = 0; i < order.size(); i++) {
+                pos.put(key(order.type(i), order.tid(i), order.index(i)), i);
+            }
+            List<long[]> edges = quadraticEdges(invCounts, views);
+            java.util.Set<Long> nodes = new java.util.HashSet<>();
+            for (long[] e : edges) {
+                nodes.add(e[0]);
+                nodes.add(e[1]);
+                assertTrue(pos.get(e[0]) < pos.get(e[1]), "edge violated in round " + round);
+            }
+            for (int t = 0; t < p; t++) {
+                for (int k = 0; k < views[t].length; k++) {
+                    nodes.add(key(EventLog.INVOKE, t, k));
+                    nodes.add(key(EventLog.RETURN, t, k));
+                }
+            }
+            assertEquals(nodes, pos.keySet());
+
+            // and every thread appears in program order
+            int[] next = new int[p];
+            byte[] nextType = new byte[p];
+            for (int i = 0; i < order.size(); i++) {
+                int t = order.tid(i);
+                assertEquals(nextType[t], order.type(i));
+                assertEquals(next[t], order.index(i));
+                if (order.type(i) == EventLog.RETURN) next[t]++;
+                nextType[t] = (byte) (1 - nextType[t]);
+            }
+        }
+    }
+
+    private static long key(byte type, int tid, int index) {
+        return ((long) type << 40) | ((long) tid << 20) | index;
+    }
+
+    /** Edges (a), (b), (c) exactly as logrAw/build-edges-as-events builds them. */
+    private static List<long[]> quadraticEdges(int[] invCounts, int[][][] views) {
+        List<long[]> edges = new ArrayList<>();
+        int p = invCounts.length;
+        for (int t = 0; t < p; t++) {
+            for (int k = 0; k < views[t].length; k++) {
+                long ret = key(EventLog.RETURN, t, k);
+                int[] vi = views[t][k];
+                edges.add(new long[]{key(EventLog.INVOKE, t, k), ret});
+                for (int u = 0; u < p; u++) {
+                    for (int x = 0; x < Math.min(vi[u], invCounts[u]); x++) {
+                        if (u != t || x != k) edges.add(new long[]{key(EventLog.INVOKE, u, x), ret});
+                    }
+                    for (int y = 0; y < views[u].length; y++) {
+                        int[] vj = views[u][y];
+                        if (u == t && y == k) continue;
+                        boolean le = true;
+                        for (int w = 0; w < p; w++) le &= vi[w] <= vj[w];
+                        if (le && !java.util.Arrays.equals(vi, vj) && y >= vi[u]) {
+                            edges.add(new long[]{ret, key(EventLog.INVOKE, u, y)});
+                        }
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,145 @@
+package phd.distributed.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentVector;
+import phd.distributed.datamodel.MethodInf;
+import phd.distributed.datamodel.OperationCall;
+
+class XeBuilderTest {
+
+    private static final Keyword TYPE  = Keyword.intern(null, "type");
+    private static final Keyword TID   = Keyword.intern(null, "tid");
+    private static final Keyword OP_ID = Keyword.intern(null, "op-id");
+    private static final Keyword RES   = Keyword.intern(null, "res");
+    private static final Keyword ARG   = Keyword.intern(null, "arg");
+
+    @Test
+    void testByCountMergesByCountThenTid() {
+        // Given: stamps 1,3 on thread 0 and 2,3 on thread 1 (tie at 3)
+        EventLog log = new EventLog(2);
+        Keyword offer = Keyword.intern(null, "offer");
+        log.append(0, EventLog.INVOKE, offer, 7, 1);
+        log.append(1, EventLog.INVOKE, offer, 8, 2);
+        log.append(1, EventLog.RETURN, null, true, 3);
+        log.append(0, EventLog.RETURN, null, "null", 3);
+
+        // When
+        IPersistentVector xe = XeBuilder.byCount(log);
+
+        // Then
+        assertEquals(4, xe.count());
+        int[] tids = {0, 1, 0, 1};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(tids[i], ((Map<?, ?>) xe.nth(i)).get(TID));
+        }
+        Map<?, ?> ret0 = (Map<?, ?>) xe.nth(2);
+        assertEquals(Keyword.intern(null, "return"), ret0.get(TYPE));
+        assertEquals(Snapshot.packOpId(0, 1), ret0.get(OP_ID));
+        assertNull(ret0.get(RES));
+        assertEquals(Boolean.TRUE, ((Map<?, ?>) xe.nth(3)).get(RES));
+    }
+
+    @Test
+    void testDecodeKeepsValuesTyped() {
+        // Given: raw arguments and results as recorded by the producers
+        Object tuple = new Object[] {3, "v"};
+
+        // When / Then
+        assertNull(XeBuilder.decode("nil"));
+        assertEquals(Boolean.FALSE, XeBuilder.decode(false));
+        assertEquals(3L, XeBuilder.decode(3));
+        assertEquals(2.5, XeBuilder.decode(2.5f));
+        assertEquals(PersistentVector.create(3L, "v"), XeBuilder.decode(tuple));
+        assertEquals("a", XeBuilder.decode('a'));
+        assertEquals(PersistentVector.create(1L, 2L), XeBuilder.decode(new int[] {1, 2}));
+    }
+
+    @Test
+    void testFrozenResultsKeepTheirReturnTimeValue() {
+        // Given: mutable results the algorithm keeps using after returning them
+        List<Integer> list = new ArrayList<>(List.of(1, 2));
+        Map<String, Integer> map = new HashMap<>(Map.of("k", 1));
+        int[] array = {1, 2};
+
+        // When
+        Object frozenList  = Snapshot.freeze(list);
+        Object frozenMap   = Snapshot.freeze(map);
+        Object frozenArray = Snapshot.freeze(array);
+        list.add(3);
+        map.put("k", 2);
+        array[0] = 9;
+
+        // Then: the log still holds the values seen at return time
+        assertEquals("[1, 2]", XeBuilder.decode(frozenList));
+        assertEquals("{k=1}", XeBuilder.decode(frozenMap));
+        assertEquals(PersistentVector.create(1L, 2L), XeBuilder.decode(frozenArray));
+        assertEquals("[1, 2]", Snapshot.valueAsString(frozenArray));
+    }
+
+    @Test
+    void testArgumentsAreFrozenAtInvocation() throws Exception {
+        // Given: a list argument the caller mutates after the call
+        CollectFAInc snap = new CollectFAInc(1);
+        MethodInf offer = new MethodInf(ConcurrentLinkedQueue.class.getMethod("offer", Object.class));
+        List<Integer> arg = new ArrayList<>(List.of(1, 2));
+
+        // When
+        snap.write(0, new OperationCall(arg, offer));
+        snap.snapshot(0, true);
+        arg.add(3);
+
+        // Then: X_E has the argument as it was passed
+        Map<?, ?> inv = (Map<?, ?>) snap.buildXE().nth(0);
+        assertEquals("[1, 2]", inv.get(ARG));
+    }
+
+    @Test
+    void testCollectionsAreKeptByReferenceWhenNotFrozen() {
+        // Given
+        List<Integer> list = new ArrayList<>(List.of(1, 2));
+        int[] array = {1, 2};
+
+        // When
+        Object kept = Snapshot.freeze(list, false);
+        Object cloned = Snapshot.freeze(array, false);
+
+        // Then: no O(size) copy of the collection; arrays are still cloned
+        assertSame(list, kept);
+        assertNotSame(array, cloned);
+    }
+
+    @Test
+    void testByViewsOrdersOverlappingOperations() {
+        // Given: thread 0's return saw nothing of thread 1, whose
+        // operation starts only after that return
+        EventLog log = new EventLog(2);
+        Keyword poll = Keyword.intern(null, "poll");
+        log.append(0, EventLog.INVOKE, poll, null, 0);
+        log.append(0, EventLog.RETURN, new int[] {1, 0}, null, 0);
+        log.append(1, EventLog.INVOKE, poll, null, 0);
+        log.append(1, EventLog.RETURN, new int[] {1, 1}, null, 0);
+
+        // When
+        IPersistentVector xe = XeBuilder.byViews(log);
+
+        // Then
+        assertEquals(4, xe.count());
+        int[] tids = {0, 0, 1, 1};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(tids[i], ((Map<?, ?>) xe.nth(i)).get(TID));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package phd.distributed.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentVector;
+
+class XeStreamTest {
+
+    @Test
+    void testPollWhileProducingMatchesByCount() throws InterruptedException {
+        // Given: four threads appending invoke/return pairs to a publishing log
+        int threads = 4;
+        int ops = 3000;
+        EventLog log = new EventLog(threads);
+        AtomicInteger clock = new AtomicInteger();
+        XeStream stream = new XeStream(log, clock::get);
+        log.enablePublishing();
+        Keyword offer = Keyword.intern(null, "offer");
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int tid = t;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < ops; i++) {
+                    log.begin(tid);
+                    log.append(tid, EventLog.INVOKE, offer, i, clock.incrementAndGet());
+                    log.begin(tid);
+                    log.append(tid, EventLog.RETURN, null, true, clock.incrementAndGet());
+                }
+            }));
+        }
+
+        // When: the stream is polled concurrently, then drained
+        List<Object> online = new ArrayList<>();
+        producers.forEach(Thread::start);
+        boolean running = true;
+        while (running) {
+            running = producers.stream().anyMatch(Thread::isAlive);
+            stream.poll(online::add);
+        }
+        for (Thread p : producers) {
+            p.join();
+        }
+        stream.poll(online::add);
+
+        // Then: same events in the same order as the batch merge
+        IPersistentVector batch = XeBuilder.byCount(log);
+        assertEquals(2 * threads * ops, online.size());
+        assertEquals(batch, PersistentVector.create(online));
+    }
+
+    @Test
+    void testBusyThreadHoldsBackLaterStamps() {
+        // Given: thread 0 took stamp 2 but has not appended it yet
+        EventLog log = new EventLog(2);
+        log.enablePublishing();
+        XeStream stream = new XeStream(log, () -> 3);
+        Keyword poll = Keyword.intern(null, "poll");
+        log.append(0, EventLog.INVOKE, poll, null, 1);
+        log.begin(0);
+        log.append(1, EventLog.INVOKE, poll, null, 3);
+
+        // When
+        List<Object> out = new ArrayList<>();
+        int first = stream.poll(out::add);
+        log.append(0, EventLog.RETURN, null, 5, 2);
+        int second = stream.poll(out::add);
+
+        // Then: stamp 3 of thread 1 is only emitted after stamp 2
+        assertEquals(1, first);
+        assertEquals(2, second);
+    }
+
+    @Test
+    void testDrainOverManyThreadsMatchesByCount() {
+        // Given: 2000 tids, every third one recording an interleaved pair
+        int threads = 2000;
+        EventLog log = new EventLog(threads);
+        log.enablePublishing();
+        XeStream stream = new XeStream(log, () -> Integer.MAX_VALUE);
+        Keyword offer = Keyword.intern(null, "offer");
+        int c = 0;
+        for (int t = 1998; t >= 0; t -= 3) {
+            log.append(t, EventLog.INVOKE, offer, t, ++c);
+        }
+        for (int t = 0; t < threads; t += 3) {
+            log.append(t, EventLog.RETURN, null, true, ++c);
+        }
+
+        // When
+        List<Object> online = new ArrayList<>();
+        stream.poll(online::add);
+
+        // Then
+        assertEquals(XeBuilder.byCount(log), PersistentVector.create(online));
+    }
+
+    @Test
+    void testReleasingStreamFreesConsumedChunks() {
+        // Given: the same events in a log read by a releasing stream and in a plain one
+        EventLog log = new EventLog(1);
+        EventLog copy = new EventLog(1);
+        log.enablePublishing();
+        XeStream stream = new XeStream(log, () -> Integer.MAX_VALUE, true);
+        Keyword offer = Keyword.intern(null, "offer");
+        int c = 0;
+        for (int i = 0; i < 5000; i++) {
+            for (EventLog l : List.of(log, copy)) {
+                l.append(0, EventLog.INVOKE, offer, i, c + 1);
+                l.append(0, EventLog.RETURN, null, true, c + 2);
+            }
+            c += 2;
+        }
+
+        // When
+        List<Object> online = new ArrayList<>();
+        stream.poll(online::add);
+
+        // Then: same X_E, only the last chunk is still held, and the log refuses a rebuild
+        assertEquals(XeBuilder.byCount(copy), PersistentVector.create(online));
+        assertTrue(log.released(0) > 10000 - EventLog.CHUNK_SIZE);
+        assertTrue(log.isReleased());
+        assertThrows(IllegalStateException.class, () -> XeBuilder.byCount(log));
+    }
+}
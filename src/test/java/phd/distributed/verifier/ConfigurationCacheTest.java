@@ -0,0 +1,64 @@
+package phd.distributed.verifier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import clojure.lang.PersistentVector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+@Tag("fast")
+class ConfigurationCacheTest {
+
+    @Test
+    void testStateComparedByValueAndBitsCopied() {
+        ConfigurationCache cache = new ConfigurationCache(1024);
+        long[] done = {0b101L};
+
+        cache.add(done, PersistentVector.create(1L, 2L));
+        done[0] = 0b111L;
+
+        assertTrue(cache.contains(new long[] {0b101L}, PersistentVector.create(1L, 2L)));
+        assertFalse(cache.contains(done, PersistentVector.create(1L, 2L)));
+        assertFalse(cache.contains(new long[] {0b101L}, PersistentVector.create(2L, 1L)));
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        // Room for two one-word keys
+        ConfigurationCache cache = new ConfigurationCache(2 * ConfigurationCache.entryBytes(new long[1]));
+        cache.add(new long[] {1L}, "a");
+        cache.add(new long[] {2L}, "b");
+        cache.contains(new long[] {1L}, "a");   // touch a
+        cache.add(new long[] {3L}, "c");        // evicts b
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(new long[] {1L}, "a"));
+        assertFalse(cache.contains(new long[] {2L}, "b"));
+    }
+
+    @Test
+    void testBudgetCountsBitsetWords() {
+        ConfigurationCache cache = new ConfigurationCache(900);
+        for (long i = 0; i < 4; i++) {
+            cache.add(new long[] {i}, "s");
+        }
+        assertEquals(4, cache.size());
+
+        // A 100-word bitset takes most of the budget and evicts the small keys
+        cache.add(new long[100], "s");
+        assertEquals(1, cache.size());
+        assertTrue(cache.bytes() <= 900);
+        assertTrue(cache.contains(new long[100], "s"));
+    }
+
+    @Test
+    void testZeroSizeDisablesCache() {
+        ConfigurationCache cache = new ConfigurationCache(0);
+        cache.add(new long[] {1L}, "a");
+        assertFalse(cache.contains(new long[] {1L}, "a"));
+    }
+}
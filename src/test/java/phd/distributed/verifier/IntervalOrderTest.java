@@ -0,0 +1,66 @@
+package phd.distributed.verifier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("unit")
+@Tag("fast")
+class IntervalOrderTest {
+
+    @Test
+    void testCandidatesBoundedByMinimalPendingReturn() {
+        // op0 [0,3]  op1 [1,2]  op2 [4,6]  op3 [5,7]
+        IntervalOrder order = new IntervalOrder(new int[] {0, 1, 4, 5}, new int[] {3, 2, 6, 7});
+
+        assertArrayEquals(new int[] {0, 1}, order.candidates());
+
+        order.markDone(1);
+        assertArrayEquals(new int[] {0}, order.candidates());
+
+        order.markDone(0);
+        assertArrayEquals(new int[] {2, 3}, order.candidates());
+        assertEquals(2, order.doneCount());
+
+        order.unmarkDone(0);
+        assertArrayEquals(new int[] {0}, order.candidates());
+    }
+
+    @Test
+    void testCandidatesAcrossWordBoundary() {
+        // 70 mutually overlapping operations: all ready, then all but the done ones
+        int n = 70;
+        int[] inv = new int[n];
+        int[] ret = new int[n];
+        for (int i = 0; i < n; i++) {
+            inv[i] = i;
+            ret[i] = n + i;
+        }
+        IntervalOrder order = new IntervalOrder(inv, ret);
+        assertEquals(n, order.candidates().length);
+
+        order.markDone(64);
+        int[] c = order.candidates();
+        assertEquals(n - 1, c.length);
+        assertEquals(65, c[64]);
+    }
+
+    @Test
+    void testCopyHasIndependentDoneSet() {
+        // Given: op0 [0,3]  op1 [1,2]  op2 [4,6]  op3 [5,7] with op1 done
+        IntervalOrder order = new IntervalOrder(new int[] {0, 1, 4, 5}, new int[] {3, 2, 6, 7});
+        order.markDone(1);
+
+        // When: a forked branch marks op0 on its copy
+        IntervalOrder branch = order.copy();
+        branch.markDone(0);
+
+        // Then: the original is unchanged
+        assertEquals(1, order.doneCount());
+        assertArrayEquals(new int[] {0}, order.candidates());
+        assertEquals(2, branch.doneCount());
+        assertArrayEquals(new int[] {2, 3}, branch.candidates());
+    }
+}
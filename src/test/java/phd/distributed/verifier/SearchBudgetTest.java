@@ -0,0 +1,71 @@
+package phd.distributed.verifier;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+@Tag("fast")
+class SearchBudgetTest {
+
+    @Test
+    void testNodeLimit() {
+        // Given
+        SearchBudget budget = new SearchBudget(3, null);
+
+        // When / Then
+        assertTrue(budget.tick());
+        assertTrue(budget.tick());
+        assertTrue(budget.tick());
+        assertFalse(budget.tick());
+        assertTrue(budget.isExhausted());
+        assertEquals(SearchBudget.Reason.NODES, budget.reason());
+    }
+
+    @Test
+    void testExpiredDeadlineIsPolled() {
+        // Given: a deadline already in the past
+        SearchBudget budget = new SearchBudget(0, Duration.ofNanos(1));
+
+        // When: tick until the deadline poll
+        boolean ok = true;
+        for (int i = 0; i < 2048 && ok; i++) ok = budget.tick();
+
+        // Then
+        assertFalse(ok);
+        assertEquals(SearchBudget.Reason.DEADLINE, budget.reason());
+    }
+
+    @Test
+    void testNonPositiveTimeoutIsAlreadyExpired() {
+        // Given: no time left at all, e.g. spent by the producers
+        SearchBudget zero = new SearchBudget(0, Duration.ZERO);
+        SearchBudget negative = new SearchBudget(0, Duration.ofMillis(-5));
+
+        // When / Then: not a missing deadline but an expired one
+        assertFalse(zero.tick());
+        assertEquals(SearchBudget.Reason.DEADLINE, zero.reason());
+        assertFalse(negative.tick());
+        assertEquals(SearchBudget.Reason.DEADLINE, negative.reason());
+        assertTrue(new SearchBudget(0, null).tick());
+    }
+
+    @Test
+    void testCancelStopsSearch() {
+        // Given
+        SearchBudget budget = SearchBudget.unlimited();
+        assertTrue(budget.tick());
+
+        // When
+        budget.cancel();
+
+        // Then
+        assertFalse(budget.tick());
+        assertEquals(SearchBudget.Reason.INTERRUPTED, budget.reason());
+    }
+}
@@ -0,0 +1,120 @@
+package phd.distributed.verifier;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import clojure.java.api.Clojure;
+import clojure.lang.IFn;
+import clojure.lang.Keyword;
+import clojure.lang.Util;
+
+class SequentialSpecTest {
+
+    static {
+        IFn require = Clojure.var("clojure.core", "require");
+        require.invoke(Clojure.read("spec.queue"));
+        require.invoke(Clojure.read("spec.deque"));
+        require.invoke(Clojure.read("spec.priorityqueue"));
+    }
+
+    private static final IFn QUEUE_INIT  = Clojure.var("spec.queue", "queue-init");
+    private static final IFn QUEUE_STEP  = Clojure.var("spec.queue", "queue-step");
+    private static final IFn DEQUE_INIT  = Clojure.var("spec.deque", "deque-init");
+    private static final IFn DEQUE_STEP  = Clojure.var("spec.deque", "deque-step");
+    private static final IFn PQUEUE_INIT = Clojure.var("spec.priorityqueue", "pqueue-init");
+    private static final IFn PQUEUE_STEP = Clojure.var("spec.priorityqueue", "pqueue-step");
+
+    private static Keyword kw(String name) {
+        return Keyword.intern(null, name);
+    }
+
+    /** Applies one operation with its observed result; fails unless the spec accepts it. */
+    private static Object step(IFn stepFn, Object state, String op, Object arg, Object res) {
+        Map<?, ?> out = (Map<?, ?>) stepFn.invoke(state, kw(op), arg, res);
+        assertEquals(Boolean.TRUE, out.get(kw("ok?")), op + "(" + arg + ") -> " + res);
+        return out.get(kw("state"));
+    }
+
+    @Test
+    void testDequesWithSameContentsAreEqualAndHashAlike() {
+        // Given: [1 2] built from the back, from the front, and after a poll shifted its indices
+        Object a = DEQUE_INIT.invoke();
+        a = step(DEQUE_STEP, a, "offerLast", 1L, true);
+        a = step(DEQUE_STEP, a, "offerLast", 2L, true);
+
+        Object b = DEQUE_INIT.invoke();
+        b = step(DEQUE_STEP, b, "offerFirst", 2L, true);
+        b = step(DEQUE_STEP, b, "offerFirst", 1L, true);
+
+        Object c = DEQUE_INIT.invoke();
+        c = step(DEQUE_STEP, c, "offerLast", 0L, true);
+        c = step(DEQUE_STEP, c, "offerLast", 1L, true);
+        c = step(DEQUE_STEP, c, "offerLast", 2L, true);
+        c = step(DEQUE_STEP, c, "pollFirst", null, 0L);
+
+        // When: a's hash is cached before the others are compared with it
+        int hash = a.hashCode();
+
+        // Then: equal and same hash, for Java (configuration caches) and Clojure
+        assertEquals(a, b);
+        assertEquals(a, c);
+        assertEquals(hash, b.hashCode());
+        assertEquals(hash, c.hashCode());
+        assertTrue(Util.equiv(a, c));
+        assertEquals(Util.hasheq(a), Util.hasheq(c));
+    }
+
+    @Test
+    void testDequesWithDifferentContentsDiffer() {
+        // Given: [1 2] and [2 1]
+        Object a = DEQUE_INIT.invoke();
+        a = step(DEQUE_STEP, a, "offerLast", 1L, true);
+        a = step(DEQUE_STEP, a, "offerLast", 2L, true);
+        Object b = DEQUE_INIT.invoke();
+        b = step(DEQUE_STEP, b, "offerLast", 2L, true);
+        b = step(DEQUE_STEP, b, "offerLast", 1L, true);
+
+        // Then
+        assertNotEquals(a, b);
+        assertNotEquals(a, DEQUE_INIT.invoke());
+    }
+
+    @Test
+    void testQueueOfferPollRoundTrip() {
+        Object q = QUEUE_INIT.invoke();
+        q = step(QUEUE_STEP, q, "offer", 1L, true);
+        q = step(QUEUE_STEP, q, "offer", 2L, true);
+        q = step(QUEUE_STEP, q, "poll", null, 1L);
+        q = step(QUEUE_STEP, q, "poll", null, 2L);
+        q = step(QUEUE_STEP, q, "poll", null, null);
+        assertEquals(QUEUE_INIT.invoke(), q);
+    }
+
+    @Test
+    void testDequeOfferPollRoundTrip() {
+        Object d = DEQUE_INIT.invoke();
+        d = step(DEQUE_STEP, d, "offerLast", 1L, true);
+        d = step(DEQUE_STEP, d, "offerFirst", 0L, true);
+        d = step(DEQUE_STEP, d, "pollLast", null, 1L);
+        d = step(DEQUE_STEP, d, "pollFirst", null, 0L);
+        d = step(DEQUE_STEP, d, "pollFirst", null, null);
+        assertEquals(DEQUE_INIT.invoke(), d);
+    }
+
+    @Test
+    void testPriorityQueueOfferPollRoundTrip() {
+        Object pq = PQUEUE_INIT.invoke();
+        pq = step(PQUEUE_STEP, pq, "offer", 3L, true);
+        pq = step(PQUEUE_STEP, pq, "offer", 1L, true);
+        pq = step(PQUEUE_STEP, pq, "offer", 1L, true);
+        pq = step(PQUEUE_STEP, pq, "poll", null, 1L);
+        pq = step(PQUEUE_STEP, pq, "poll", null, 1L);
+        pq = step(PQUEUE_STEP, pq, "poll", null, 3L);
+        pq = step(PQUEUE_STEP, pq, "poll", null, null);
+        assertEquals(PQUEUE_INIT.invoke(), pq);
+    }
+}